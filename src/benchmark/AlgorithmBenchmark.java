@@ -0,0 +1,118 @@
+package benchmark;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import model.BranchAndBoundAlgorithm;
+import model.Schedule;
+import model.ScheduleObjective;
+import model.Task;
+import model.TimeBlock;
+import model.UniformDistributeAlgorithm;
+
+/**
+ * Runs the exact solver and the uniform algorithm on the same generated
+ * weeks and prints how late the tasks end up (weighted tardiness, see
+ * ScheduleObjective) and how long each one took. The uniform algorithm
+ * won't place a task past its deadline, so its tardiness only counts the
+ * tasks it placed, check the unplaced column too. Not part of the app, run
+ * it by hand after changing one of the algorithms:
+ *   java benchmark.AlgorithmBenchmark [weeks per size] [seed]
+ */
+public class AlgorithmBenchmark {
+    private static final int[] TASK_COUNTS = {8, 16, 24, 32};
+    private static final LocalDateTime WEEK_START = LocalDateTime.of(2024, 9, 30, 0, 0);
+
+    public static void main(String[] args) {
+        int weeks = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 1;
+        Random random = new Random(seed);
+
+        System.out.println("tasks  algorithm  avg tardiness  unplaced  avg ms  optimal");
+        for (int taskCount : TASK_COUNTS) {
+            Result exact = new Result();
+            Result uniform = new Result();
+            for (int week = 0; week < weeks; week++) {
+                Schedule base = generateWeek(random);
+                List<Task> tasks = generateTasks(random, taskCount);
+
+                BranchAndBoundAlgorithm branchAndBound = new BranchAndBoundAlgorithm();
+                Schedule schedule = base.copy(branchAndBound);
+                long start = System.nanoTime();
+                // one search for the whole batch
+                int missing = branchAndBound.addTasks(schedule, tasks) == null ? tasks.size() : 0;
+                exact.add(schedule, missing, System.nanoTime() - start);
+                if (branchAndBound.wasLastSolveOptimal(schedule)) {
+                    exact.optimal++;
+                }
+
+                UniformDistributeAlgorithm uniformAlgorithm = new UniformDistributeAlgorithm();
+                schedule = base.copy(uniformAlgorithm);
+                start = System.nanoTime();
+                List<Task> unplaced = placeAll(schedule, tasks);
+                uniform.add(schedule, unplaced.size(), System.nanoTime() - start);
+            }
+            exact.print(taskCount, "exact", weeks);
+            uniform.print(taskCount, "uniform", weeks);
+        }
+    }
+
+    // Same order for every algorithm, returns the tasks that didn't fit.
+    private static List<Task> placeAll(Schedule schedule, List<Task> tasks) {
+        List<Task> unplaced = new ArrayList<>();
+        for (Task task : tasks) {
+            if (schedule.addTask(task) == null) {
+                unplaced.add(task);
+            }
+        }
+        return unplaced;
+    }
+
+    // A week with a few fixed appointments during the day.
+    private static Schedule generateWeek(Random random) {
+        Schedule schedule = new Schedule(WEEK_START, WEEK_START.plusDays(7), new UniformDistributeAlgorithm());
+        for (int day = 0; day < 7; day++) {
+            int appointments = random.nextInt(3);
+            for (int i = 0; i < appointments; i++) {
+                LocalDateTime start = WEEK_START.plusDays(day).plusHours(8 + random.nextInt(10));
+                Task fixed = new Task("Appointment", 1, 1.0, null, true);
+                if (schedule.getTimeBlocksStartingBetween(start.minusHours(1), start.plusHours(1)).isEmpty()) {
+                    schedule.addTimeBlockManually(new TimeBlock(fixed, start, Duration.ofHours(1)));
+                }
+            }
+        }
+        return schedule;
+    }
+
+    // Tasks of half an hour to 4 hours, due in the first three days so they
+    // have to compete for the time.
+    private static List<Task> generateTasks(Random random, int count) {
+        List<Task> tasks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            double hours = 0.5 * (1 + random.nextInt(8));
+            LocalDateTime deadline = WEEK_START.plusHours(6 + random.nextInt(3 * 24));
+            tasks.add(new Task("Task " + i, 1 + random.nextInt(5), hours, deadline, false));
+        }
+        return tasks;
+    }
+
+    private static class Result {
+        double tardiness = 0;
+        int unplaced = 0;
+        long nanos = 0;
+        int optimal = 0;
+
+        void add(Schedule schedule, int unplaced, long nanos) {
+            tardiness += ScheduleObjective.weightedTardiness().score(schedule);
+            this.unplaced += unplaced;
+            this.nanos += nanos;
+        }
+
+        void print(int taskCount, String name, int weeks) {
+            System.out.printf("%5d  %-9s  %13.1f  %8d  %6.1f  %s%n", taskCount, name, tardiness / weeks, unplaced,
+                    nanos / 1e6 / weeks, name.equals("exact") ? optimal + "/" + weeks : "-");
+        }
+    }
+}
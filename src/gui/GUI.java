@@ -6,11 +6,14 @@ import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.Callable;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 import javafx.application.Application;
 import javafx.application.Platform;
@@ -33,8 +36,16 @@ import javafx.scene.text.Font;
 import javafx.stage.Stage;
 import javafx.util.StringConverter;
 import model.Algorithm;
+import model.AssignmentAlgorithm;
+import model.BranchAndBoundAlgorithm;
+import model.DeadlineAlgorithm;
+import model.LoadLevelingAlgorithm;
+import model.LocalSearchAlgorithm;
 import model.Calendar;
 import model.CalendarWeek;
+import model.OverloadResolver;
+import model.PackingAlgorithm;
+import model.PortfolioAlgorithm;
 import model.PriorityAlgorithm;
 import model.RandomAlgorithm;
 import model.Schedule;
@@ -108,7 +119,9 @@ public class GUI extends Application {
         
         window.setCenter(taskPane);
 
-        algorithmComboBox.getItems().addAll(new UniformDistributeAlgorithm(), new RandomAlgorithm(), new PriorityAlgorithm());
+        algorithmComboBox.getItems().addAll(new UniformDistributeAlgorithm(), new RandomAlgorithm(), new PriorityAlgorithm(),
+                new DeadlineAlgorithm(), new LocalSearchAlgorithm(), new BranchAndBoundAlgorithm(), new PortfolioAlgorithm(),
+                new PackingAlgorithm(), new LoadLevelingAlgorithm(), new AssignmentAlgorithm());
         algorithmComboBox.getSelectionModel().selectFirst(); // Select the first algorithm by default
 
         algorithmComboBox.setConverter(new StringConverter<Algorithm>() {
@@ -120,6 +133,20 @@ public class GUI extends Application {
                     return "Random";
                 } else if (algorithm instanceof PriorityAlgorithm) {
                     return "Priority";
+                } else if (algorithm instanceof DeadlineAlgorithm) {
+                    return "Deadline";
+                } else if (algorithm instanceof LocalSearchAlgorithm) {
+                    return "Optimize";
+                } else if (algorithm instanceof BranchAndBoundAlgorithm) {
+                    return "Exact";
+                } else if (algorithm instanceof PortfolioAlgorithm) {
+                    return "Best of all";
+                } else if (algorithm instanceof PackingAlgorithm) {
+                    return "Pack";
+                } else if (algorithm instanceof LoadLevelingAlgorithm) {
+                    return "Level days";
+                } else if (algorithm instanceof AssignmentAlgorithm) {
+                    return "Assign hours";
                 }
                 return algorithm.toString();
             }
@@ -180,7 +207,8 @@ public class GUI extends Application {
         setupCurrentTimeHandler();
 
         scene.setOnKeyPressed(event -> {
-            if (event.getCode() == KeyCode.F9) {
+            // not while scheduling is still running in the background
+            if (event.getCode() == KeyCode.F9 && !window.isDisable()) {
                 // remove all other elements for demonstration purposes.
                 currentWeek.getSchedule().removeAll();
                 ExampleSchedules.manuallyAddTimeBlocks(currentWeek.getSchedule());
@@ -244,27 +272,23 @@ public class GUI extends Application {
             @Override
             public void handle(MouseEvent event) {
                 addNewTask(currentWeek.getSchedule());
-                updateTable(currentWeek.getSchedule());
                 event.consume();
             }
         });
 
-        // Add logic for rescheduling tasks
+        // Add logic for rescheduling tasks. The optimizers can take a few
+        // seconds, so it runs in the background.
         rescheduleButton.setOnMouseClicked(new EventHandler<MouseEvent>() {
             @Override
             public void handle(MouseEvent event) {
-                Algorithm currentAlgorithm = currentWeek.getSchedule().getAlgorithm();
-    
-                if (currentAlgorithm instanceof PriorityAlgorithm) {
-                    ((PriorityAlgorithm) currentAlgorithm).reschedule(currentWeek.getSchedule());
-                } else if (currentAlgorithm instanceof RandomAlgorithm) {
-                    ((RandomAlgorithm) currentAlgorithm).reschedule(currentWeek.getSchedule());
-                } else if (currentAlgorithm instanceof UniformDistributeAlgorithm) {
-                    ((UniformDistributeAlgorithm) currentAlgorithm).reschedule(currentWeek.getSchedule());
-                    
-                }
-                
-                updateTable(currentWeek.getSchedule());
+                CalendarWeek week = currentWeek;
+                Algorithm currentAlgorithm = week.getSchedule().getAlgorithm();
+                runInBackground(() -> reschedule(week, currentAlgorithm), left -> {
+                    updateTable(currentWeek.getSchedule());
+                    if (!left.isEmpty()) {
+                        showUnscheduled(left);
+                    }
+                });
                 event.consume();
             }
         });
@@ -296,6 +320,79 @@ public class GUI extends Application {
         });
     }
 
+    // Run 'work' on a background thread and hand its result to 'done' on the
+    // JavaFX thread. The window is disabled in between so nothing else
+    // touches the schedule while it changes.
+    private <T> void runInBackground(Callable<T> work, Consumer<T> done) {
+        javafx.concurrent.Task<T> job = new javafx.concurrent.Task<>() {
+            @Override
+            protected T call() throws Exception {
+                return work.call();
+            }
+        };
+        job.setOnSucceeded(event -> {
+            window.setDisable(false);
+            done.accept(job.getValue());
+        });
+        job.setOnFailed(event -> {
+            window.setDisable(false);
+            updateTable(currentWeek.getSchedule());
+            Alert alert = new Alert(Alert.AlertType.ERROR, String.valueOf(job.getException()), ButtonType.OK);
+            alert.setTitle("Scheduling Failed");
+            alert.setHeaderText("Something went wrong while scheduling");
+            alert.showAndWait();
+        });
+        window.setDisable(true);
+        Thread thread = new Thread(job, "scheduling");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // Reschedule the week with its algorithm. Runs off the JavaFX thread, so
+    // it only touches the model. Returns the tasks no week had room for,
+    // for the user to deal with.
+    private List<Task> reschedule(CalendarWeek week, Algorithm currentAlgorithm) {
+        Schedule schedule = week.getSchedule();
+        if (currentAlgorithm instanceof PriorityAlgorithm) {
+            ((PriorityAlgorithm) currentAlgorithm).reschedule(schedule);
+        } else if (currentAlgorithm instanceof RandomAlgorithm) {
+            ((RandomAlgorithm) currentAlgorithm).reschedule(schedule);
+        } else if (currentAlgorithm instanceof UniformDistributeAlgorithm) {
+            // what doesn't fit anymore goes to a later week
+            List<Task> deferred = ((UniformDistributeAlgorithm) currentAlgorithm).rescheduleOrDefer(schedule);
+            return OverloadResolver.deferToNextWeek(calendar, week, deferred);
+        } else if (currentAlgorithm instanceof DeadlineAlgorithm) {
+            ((DeadlineAlgorithm) currentAlgorithm).reschedule(schedule);
+        } else if (currentAlgorithm instanceof LocalSearchAlgorithm) {
+            ((LocalSearchAlgorithm) currentAlgorithm).reschedule(schedule);
+        } else if (currentAlgorithm instanceof BranchAndBoundAlgorithm) {
+            ((BranchAndBoundAlgorithm) currentAlgorithm).reschedule(schedule);
+        } else if (currentAlgorithm instanceof PortfolioAlgorithm) {
+            ((PortfolioAlgorithm) currentAlgorithm).reschedule(schedule);
+        } else if (currentAlgorithm instanceof PackingAlgorithm) {
+            ((PackingAlgorithm) currentAlgorithm).reschedule(schedule);
+        } else if (currentAlgorithm instanceof LoadLevelingAlgorithm) {
+            ((LoadLevelingAlgorithm) currentAlgorithm).rebalance(schedule);
+        } else if (currentAlgorithm instanceof AssignmentAlgorithm) {
+            ((AssignmentAlgorithm) currentAlgorithm).reschedule(schedule);
+        }
+        return new ArrayList<>();
+    }
+
+    // The tasks that were taken out of the week and found no room in the
+    // weeks after it either. They were put back in this week on top of other
+    // blocks, so the user has to move or shorten something.
+    private void showUnscheduled(List<Task> tasks) {
+        StringBuilder text = new StringBuilder();
+        for (Task task : tasks) {
+            text.append(task.getDescription()).append(" (").append(task.getEstimatedTime()).append(" h)\n");
+        }
+        Alert alert = new Alert(Alert.AlertType.WARNING, text.toString(), ButtonType.OK);
+        alert.setTitle("Tasks Not Scheduled");
+        alert.setHeaderText("No week had room for these tasks, they overlap other tasks in this week");
+        alert.showAndWait();
+    }
+
     // set the dimensions of every element, static or dynamic; will be called once at startup
     private void setInitialElementSizes() {
         // Use percentage-based widths
@@ -379,20 +476,23 @@ public class GUI extends Application {
         }
         Task newTask = userRet.get();
     
-        // Use Scheduler to find the best slot within the current week
+        // Use Scheduler to find the best slot within the current week. The
+        // exact solver searches for a while, so this runs in the background.
         Scheduler scheduler = new Scheduler(schedule);
-        TimeBlock timeBlock = scheduler.scheduleTaskWithinWeek(newTask, currentWeek.getStartTime(), currentWeek.getEndTime());
-    
-        if (timeBlock != null) {
-            System.out.println("New Task Added: " + timeBlock);
-            updateTable(schedule); // Refresh the UI to show the new task
-        } else {
-            System.out.println("No available slot found for task within the current week.");
-            Alert alert = new Alert(Alert.AlertType.WARNING, "No available slot within the week for this task.", ButtonType.OK);
-            alert.setTitle("Scheduling Conflict");
-            alert.setHeaderText("Unable to Schedule Task");
-            alert.showAndWait();
-        }
+        LocalDateTime weekStart = currentWeek.getStartTime();
+        LocalDateTime weekEnd = currentWeek.getEndTime();
+        runInBackground(() -> scheduler.scheduleTaskWithinWeek(newTask, weekStart, weekEnd), timeBlock -> {
+            if (timeBlock != null) {
+                System.out.println("New Task Added: " + timeBlock);
+                updateTable(schedule); // Refresh the UI to show the new task
+            } else {
+                System.out.println("No available slot found for task within the current week.");
+                Alert alert = new Alert(Alert.AlertType.WARNING, "No available slot within the week for this task.", ButtonType.OK);
+                alert.setTitle("Scheduling Conflict");
+                alert.setHeaderText("Unable to Schedule Task");
+                alert.showAndWait();
+            }
+        });
     }    
 
     private void saveSchedule(String filename) {
@@ -443,6 +543,10 @@ public class GUI extends Application {
             if (currentWeek.getSchedule().containsTimeBlock(timeBlock)) {
                 taskPane.addTimeBlock(timeBlock, this);
             }
+            for (TimeBlock moved : dialog.getMovedTimeBlocks()) {
+                taskPane.removeTimeBlock(moved);
+                taskPane.addTimeBlock(moved, new HandleEditEvent(moved));
+            }
             event.consume();
         }
     }
@@ -141,9 +141,9 @@ public class SettingsPane extends VBox {
     }
 
     public void loadWeekValues() {
-        nightStartTimeField.getValueFactory().setValue(gui.currentWeek.getSchedule().getAlgorithm().getNightStart());
-        nightEndTimeField.getValueFactory().setValue(gui.currentWeek.getSchedule().getAlgorithm().getNightEnd());
-        considerNightCheckBox.selectedProperty().setValue(gui.currentWeek.getSchedule().getAlgorithm().getNightCheck());
+        nightStartTimeField.getValueFactory().setValue(gui.currentWeek.getSchedule().getContext().getNightStart());
+        nightEndTimeField.getValueFactory().setValue(gui.currentWeek.getSchedule().getContext().getNightEnd());
+        considerNightCheckBox.selectedProperty().setValue(gui.currentWeek.getSchedule().getContext().getNightCheck());
         weekStartTimeField.valueProperty().setValue(gui.currentWeek.getStartTime().toLocalDate());
         weekEndTimeField.valueProperty().setValue(gui.currentWeek.getEndTime().toLocalDate());
         gui.taskPane.refresh(gui, gui.currentWeek.getSchedule());
@@ -171,9 +171,10 @@ public class SettingsPane extends VBox {
             return;
         }
         // Code to apply the settings changes
-        gui.currentWeek.getSchedule().getAlgorithm().setNightStart(nightStartTimeField.valueProperty().get());
-        gui.currentWeek.getSchedule().getAlgorithm().setNightEnd(nightEndTimeField.valueProperty().get());
-        gui.currentWeek.getSchedule().getAlgorithm().setNightCheck(considerNightCheckBox.selectedProperty().get());
+        gui.currentWeek.getSchedule().getContext().setNightStart(nightStartTimeField.valueProperty().get());
+        gui.currentWeek.getSchedule().getContext().setNightEnd(nightEndTimeField.valueProperty().get());
+        gui.currentWeek.getSchedule().getContext().setNightCheck(considerNightCheckBox.selectedProperty().get());
+        gui.currentWeek.getSchedule().compileAvailability();
         gui.currentWeek.setStartTime(weekStartTimeField.valueProperty().getValue().atStartOfDay());
         gui.currentWeek.setEndTime(weekEndTimeField.valueProperty().getValue().atStartOfDay());
         System.out.println("Settings have been updated!");
@@ -4,8 +4,10 @@ import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
+import java.util.List;
 import java.util.Optional;
 
+import javafx.scene.control.Alert;
 import javafx.scene.control.ButtonType;
 import javafx.scene.control.CheckBox;
 import javafx.scene.control.DatePicker;
@@ -18,6 +20,12 @@ import model.Task;
 import model.TimeBlock;
 
 public class TaskEditDialog {
+    // blocks that had to make room for the edited one
+    private List<TimeBlock> movedTimeBlocks = List.of();
+
+    public List<TimeBlock> getMovedTimeBlocks() {
+        return movedTimeBlocks;
+    }
 
     public Optional<Boolean> showEditDialog(Schedule schedule, TimeBlock timeBlock) {
         // Create the custom dialog
@@ -135,11 +143,32 @@ public class TaskEditDialog {
                     LocalTime newEndTime = endTimeField.getValueFactory().getValue();
                     LocalDateTime newEnd = LocalDateTime.of(newEndDate, newEndTime);
 
-                    timeBlock.setStartTime(newStart);
-                    timeBlock.setEndTime(newEnd);
+                    // the edit is undone if the blocks in the way can't move
+                    Schedule.Savepoint savepoint = schedule.begin();
+                    boolean wasFixed = task.isFixed();
+                    schedule.moveTimeBlock(timeBlock, newStart, newEnd);
 
                     // Update lock status
                     task.setFixed(lockCheckbox.isSelected());
+                    // fixed blocks are part of the availability profile
+                    schedule.compileAvailability();
+                    // only move the blocks that are in the way now
+                    List<TimeBlock> moved = schedule.repair(timeBlock);
+                    if (moved != null) {
+                        schedule.commit(savepoint);
+                        movedTimeBlocks = moved;
+                    } else {
+                        // the savepoint only covers the blocks, not the lock
+                        schedule.rollback(savepoint);
+                        task.setFixed(wasFixed);
+                        schedule.compileAvailability();
+                        Alert alert = new Alert(Alert.AlertType.WARNING,
+                                "The blocks in the way of " + task.getDescription() + " have no room to move to,"
+                                        + " so it was left where it was.", ButtonType.OK);
+                        alert.setTitle("Edit Not Applied");
+                        alert.setHeaderText("No room for the blocks this edit runs into");
+                        alert.showAndWait();
+                    }
 
                     boolean reschedule = dialogButton == rescheduleButtonType || dialogButton == acceptButtonType;
 
@@ -1,18 +1,15 @@
 package model;
 
-import java.time.LocalTime;
-
+/**
+ * An algorithm only holds its configuration and never changes after it is
+ * made. Whatever changes per call (random numbers, the night, scratch
+ * space) comes in through the context, so one instance can be used for
+ * every schedule at the same time.
+ */
 public interface Algorithm {
-    TimeBlock applyAlgorithm(Schedule schedule, Task task);
-    public LocalTime getNightStart();
-
-    public void setNightStart(LocalTime nightStart);
-
-    public LocalTime getNightEnd();
-
-    public void setNightEnd(LocalTime nightEnd);
+    TimeBlock applyAlgorithm(Schedule schedule, Task task, SchedulingContext context);
 
-    public void setNightCheck(boolean checkNight);
-    
-    public boolean getNightCheck();
+    default TimeBlock applyAlgorithm(Schedule schedule, Task task) {
+        return applyAlgorithm(schedule, task, schedule.getContext());
+    }
 }
@@ -0,0 +1,285 @@
+package model;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Places a batch of tasks at once by solving an assignment problem. The
+ * week is cut into hour slots and every task gets a cost for starting in
+ * every slot: how late it starts weighted by priority, how much less room
+ * it leaves before its deadline than we'd like, minutes late, and minutes
+ * in the night (only a cost when the night check is off, otherwise the
+ * night is blocked anyway). A slot where the task doesn't fit costs
+ * FORBIDDEN. The Hungarian method then finds the cheapest way to give
+ * every task its own start hour.
+ *
+ * The assignment keeps two tasks from starting in the same hour but on
+ * its own doesn't know a 3 hour task also covers the next two hours. So it
+ * goes in rounds: the tasks are put in at their hours in the order of the
+ * hours, and a task whose hours are already covered by one put in before it
+ * is left for the next round. That round is solved again for the tasks
+ * that are left, with the covered hours costing FORBIDDEN. Every round puts
+ * in at least the task with the first hour, so there are at most as many
+ * rounds as tasks, and every task ends up at an hour the costs were worked
+ * out for. Only a task that has no free hour at all is put in the free spot
+ * nearest to the start (before its deadline if it can).
+ */
+public class AssignmentAlgorithm implements Algorithm {
+    // cost of a slot the task can't start in, far above any real cost
+    private static final long FORBIDDEN = 1_000_000_000_000L;
+    // cost of leaving a task without a slot, above any slot it fits in
+    private static final long UNASSIGNED = 10_000_000_000L;
+    // per minute (divided by the priority)
+    private static final long LATE_WEIGHT = 100;
+    private static final long SLACK_WEIGHT = 2;
+    private static final long NIGHT_WEIGHT = 30;
+
+    // room we'd like to leave between the end of a task and its deadline
+    private final int slackMinutes;
+
+    public AssignmentAlgorithm() {
+        this(12 * 60);
+    }
+
+    public AssignmentAlgorithm(int slackMinutes) {
+        this.slackMinutes = slackMinutes;
+    }
+
+    @Override
+    public TimeBlock applyAlgorithm(Schedule schedule, Task task, SchedulingContext context) {
+        // assign() already says so when there's no room
+        List<TimeBlock> placed = assign(schedule, List.of(task), context);
+        return placed.isEmpty() ? null : placed.get(0);
+    }
+
+    // Take the movable blocks out and assign them all again. If they don't
+    // all fit anymore nothing changes.
+    public void reschedule(Schedule schedule) {
+        Schedule.Savepoint savepoint = schedule.begin();
+        List<Task> tasks = new ArrayList<>();
+        for (TimeBlock timeBlock : schedule.removeMovableTimeBlocks()) {
+            tasks.add(timeBlock.getTask());
+        }
+        if (assign(schedule, tasks, schedule.getContext()).size() < tasks.size()) {
+            System.out.println("Could not reschedule and fit all blocks within calendar week");
+            schedule.rollback(savepoint);
+            return;
+        }
+        schedule.commit(savepoint);
+    }
+
+    /*
+     * Assign all the tasks together and put them in the schedule. Returns
+     * the blocks that were placed, the tasks that found no room are left out.
+     */
+    public List<TimeBlock> assign(Schedule schedule, Collection<Task> tasks, SchedulingContext context) {
+        List<Task> left = new ArrayList<>(tasks);
+        List<TimeBlock> placed = new ArrayList<>(left.size());
+        if (left.isEmpty()) {
+            return placed;
+        }
+        // slot s starts at firstSlot + 60 * s, on the hour
+        LocalDateTime firstHour = schedule.getStartTime().truncatedTo(ChronoUnit.HOURS);
+        int firstSlot = schedule.toMinutesCeil(firstHour.isBefore(schedule.getStartTime()) ? firstHour.plusHours(1) : firstHour);
+        int slots = Math.max(0, (schedule.getEndMinute() - firstSlot) / 60);
+        int[] night = nightPrefix(schedule, context);
+        List<Task> noSlot = new ArrayList<>();
+        while (!left.isEmpty()) {
+            int[] slotOfRow = solve(schedule, left, firstSlot, slots, night);
+            Integer[] order = new Integer[left.size()];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> Integer.compare(slotOfRow[a], slotOfRow[b]));
+            List<Task> next = new ArrayList<>();
+            for (int i : order) {
+                Task task = left.get(i);
+                if (slotOfRow[i] < 0) {
+                    noSlot.add(task);
+                    continue;
+                }
+                int start = firstSlot + 60 * slotOfRow[i];
+                int length = taskMinutes(task);
+                if (!schedule.getOccupancy().isFree(start, start + length, true)) {
+                    // covered by a task with an earlier hour, solve again
+                    next.add(task);
+                    continue;
+                }
+                placed.add(add(schedule, task, start, length));
+            }
+            left = next;
+        }
+
+        // no free hour to start in, the nearest spot to the start will do
+        for (Task task : noSlot) {
+            int length = taskMinutes(task);
+            OccupancyBitmap occupancy = schedule.getOccupancy();
+            int start = -1;
+            if (task.getDeadline() != null) {
+                start = occupancy.nearestFit(schedule.getStartMinute(), length, schedule.getStartMinute(),
+                        Math.min(schedule.getEndMinute(), schedule.toMinutes(task.getDeadline())), true);
+            }
+            if (start < 0) {
+                start = occupancy.nearestFit(schedule.getStartMinute(), length, schedule.getStartMinute(),
+                        schedule.getEndMinute(), true);
+            }
+            if (start < 0) {
+                System.out.println("No room to add task " + task.getDescription() + ".");
+                continue;
+            }
+            placed.add(add(schedule, task, start, length));
+        }
+        return placed;
+    }
+
+    /*
+     * One round: the cost of every task in every slot against what is in
+     * the schedule now, solved together. Returns the slot of every task, or
+     * -1 when it got none it fits in.
+     */
+    private int[] solve(Schedule schedule, List<Task> rows, int firstSlot, int slots, int[] night) {
+        int n = rows.size();
+        // every task also gets a column of its own that means "no slot", so
+        // there are always enough columns
+        int m = slots + n;
+        long[] cost = new long[n * m];
+        OccupancyBitmap occupancy = schedule.getOccupancy();
+        for (int i = 0; i < n; i++) {
+            Task task = rows.get(i);
+            int length = taskMinutes(task);
+            int priority = task.getPriority() == null ? 5 : Math.max(1, task.getPriority());
+            int deadline = task.getDeadline() == null ? Integer.MAX_VALUE : schedule.toMinutes(task.getDeadline());
+            for (int s = 0; s < slots; s++) {
+                int start = firstSlot + 60 * s;
+                int end = start + length;
+                if (!occupancy.isFree(start, end, true)) {
+                    cost[i * m + s] = FORBIDDEN;
+                    continue;
+                }
+                long minutes = start - schedule.getStartMinute();
+                long slack = (long) deadline - end;
+                if (slack < 0) {
+                    minutes += LATE_WEIGHT * -slack;
+                } else if (slack < slackMinutes) {
+                    minutes += SLACK_WEIGHT * (slackMinutes - slack);
+                }
+                // scaled up so dividing by the priority doesn't lose much
+                cost[i * m + s] = 60 * minutes / priority + 60 * NIGHT_WEIGHT * nightMinutes(night, schedule, start, end);
+            }
+            for (int j = slots; j < m; j++) {
+                cost[i * m + j] = j - slots == i ? UNASSIGNED : FORBIDDEN;
+            }
+        }
+        int[] slotOfRow = hungarian(cost, n, m);
+        for (int i = 0; i < n; i++) {
+            if (slotOfRow[i] >= slots || cost[i * m + slotOfRow[i]] >= FORBIDDEN) {
+                slotOfRow[i] = -1;
+            }
+        }
+        return slotOfRow;
+    }
+
+    private static TimeBlock add(Schedule schedule, Task task, int start, int length) {
+        TimeBlock timeBlock = new TimeBlock(task, schedule.fromMinutes(start), schedule.fromMinutes(start + length));
+        schedule.addTimeBlock(timeBlock);
+        return timeBlock;
+    }
+
+    /*
+     * Hungarian method with potentials for an n x m cost matrix (row major,
+     * n <= m), O(n^2 m). Row i is added to the matching one at a time along
+     * the cheapest augmenting path, u and v keep the reduced costs of the
+     * matched cells at 0. Returns the column of every row.
+     */
+    static int[] hungarian(long[] cost, int n, int m) {
+        // 1-based, column 0 is the row being added
+        long[] u = new long[n + 1];
+        long[] v = new long[m + 1];
+        int[] rowOfColumn = new int[m + 1];
+        int[] way = new int[m + 1];
+        long[] minReduced = new long[m + 1];
+        boolean[] used = new boolean[m + 1];
+        for (int i = 1; i <= n; i++) {
+            rowOfColumn[0] = i;
+            int column = 0;
+            Arrays.fill(minReduced, Long.MAX_VALUE);
+            Arrays.fill(used, false);
+            do {
+                used[column] = true;
+                int row = rowOfColumn[column];
+                long delta = Long.MAX_VALUE;
+                int next = 0;
+                for (int j = 1; j <= m; j++) {
+                    if (used[j]) {
+                        continue;
+                    }
+                    long reduced = cost[(row - 1) * m + (j - 1)] - u[row] - v[j];
+                    if (reduced < minReduced[j]) {
+                        minReduced[j] = reduced;
+                        way[j] = column;
+                    }
+                    if (minReduced[j] < delta) {
+                        delta = minReduced[j];
+                        next = j;
+                    }
+                }
+                for (int j = 0; j <= m; j++) {
+                    if (used[j]) {
+                        u[rowOfColumn[j]] += delta;
+                        v[j] -= delta;
+                    } else {
+                        minReduced[j] -= delta;
+                    }
+                }
+                column = next;
+            } while (rowOfColumn[column] != 0);
+            // flip the path
+            do {
+                int previous = way[column];
+                rowOfColumn[column] = rowOfColumn[previous];
+                column = previous;
+            } while (column != 0);
+        }
+        int[] columnOfRow = new int[n];
+        for (int j = 1; j <= m; j++) {
+            if (rowOfColumn[j] != 0) {
+                columnOfRow[rowOfColumn[j] - 1] = j - 1;
+            }
+        }
+        return columnOfRow;
+    }
+
+    // night[x] = night minutes in [start, start + x) of the schedule, or
+    // null when there is no night set.
+    private static int[] nightPrefix(Schedule schedule, SchedulingContext context) {
+        LocalTime nightStart = context.getNightStart();
+        LocalTime nightEnd = context.getNightEnd();
+        if (nightStart == null || nightEnd == null) {
+            return null;
+        }
+        int from = schedule.getStartMinute();
+        int[] night = new int[schedule.getEndMinute() - from + 1];
+        LocalTime time = schedule.getStartTime().toLocalTime();
+        for (int x = 0; x < night.length - 1; x++) {
+            boolean isNight = time.isBefore(nightEnd) || !time.isBefore(nightStart);
+            night[x + 1] = night[x] + (isNight ? 1 : 0);
+            time = time.plusMinutes(1);
+        }
+        return night;
+    }
+
+    private static int nightMinutes(int[] night, Schedule schedule, int start, int end) {
+        if (night == null) {
+            return 0;
+        }
+        return night[end - schedule.getStartMinute()] - night[start - schedule.getStartMinute()];
+    }
+
+    private static int taskMinutes(Task task) {
+        return (int) (task.getEstimatedTime() * 60);
+    }
+}
@@ -0,0 +1,72 @@
+package model;
+
+/**
+ * Test cases for the assignment algorithm.
+ */
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class AssignmentAlgorithmTest {
+    // The most important task gets the first hour, the one due at 8:00 still
+    // makes it with the next hour. Two hour tasks that were given hours
+    // next to each other are laid out without overlapping.
+    @Test
+    public void testAssignmentAlgorithm() {
+        Schedule schedule = new Schedule(LocalDateTime.of(2024, 10, 1, 0, 0), LocalDateTime.of(2024, 10, 2, 0, 0),
+                new SequentialAlgorithm());
+        AssignmentAlgorithm assignment = new AssignmentAlgorithm();
+        Task important = new Task("Important", 1, 1.0, null, false);
+        Task due = new Task("Due", 5, 1.0, LocalDateTime.of(2024, 10, 1, 8, 0), false);
+        List<TimeBlock> placed = assignment.assign(schedule, List.of(due, important), schedule.getContext());
+        assertEquals(2, placed.size());
+        assertEquals(LocalDateTime.of(2024, 10, 1, 5, 0), schedule.getTimeBlockByTaskId(important.getId()).getStartTime());
+        assertEquals(LocalDateTime.of(2024, 10, 1, 6, 0), schedule.getTimeBlockByTaskId(due.getId()).getStartTime());
+
+        Schedule day = new Schedule(LocalDateTime.of(2024, 10, 1, 0, 0), LocalDateTime.of(2024, 10, 2, 0, 0), assignment);
+        Task first = new Task("First", 1, 2.0, null, false);
+        Task second = new Task("Second", 1, 2.0, null, false);
+        day.addTask(first);
+        day.addTask(second);
+        assignment.reschedule(day);
+        assertEquals(true, day.isValid());
+        assertEquals(LocalDateTime.of(2024, 10, 1, 5, 0), day.getTimeBlocks().get(0).getStartTime());
+        assertEquals(LocalDateTime.of(2024, 10, 1, 7, 0), day.getTimeBlocks().get(1).getStartTime(),
+                "The second one moves to the first free spot after the first");
+
+        // the slots where it can't fit cost too much to be picked
+        Schedule full = new Schedule(LocalDateTime.of(2024, 10, 1, 0, 0), LocalDateTime.of(2024, 10, 2, 0, 0), assignment);
+        assertEquals(null, full.addTask(new Task("Too long", 18.0)));
+    }
+
+    // A 3 hour task covers the two hours after its own. The task that was
+    // given one of them is solved again without them and gets the next free
+    // hour, not a spot in the night next to it (the night only costs here).
+    @Test
+    public void testCoveredHoursAreBlocked() {
+        Schedule schedule = new Schedule(LocalDateTime.of(2024, 10, 1, 0, 0), LocalDateTime.of(2024, 10, 2, 0, 0),
+                new SequentialAlgorithm());
+        AssignmentAlgorithm assignment = new AssignmentAlgorithm();
+        schedule.getContext().setNightCheck(false);
+        Task longer = new Task("Long", 1, 3.0, null, false);
+        Task shorter = new Task("Short", 2, 1.0, null, false);
+        List<TimeBlock> placed = assignment.assign(schedule, List.of(longer, shorter), schedule.getContext());
+        assertEquals(2, placed.size());
+        assertEquals(LocalDateTime.of(2024, 10, 1, 5, 0), schedule.getTimeBlockByTaskId(longer.getId()).getStartTime());
+        assertEquals(LocalDateTime.of(2024, 10, 1, 8, 0), schedule.getTimeBlockByTaskId(shorter.getId()).getStartTime());
+        assertEquals(true, schedule.isValid());
+
+        // four 2 hour tasks all on the hour and one after the other
+        Schedule day = new Schedule(LocalDateTime.of(2024, 10, 1, 0, 0), LocalDateTime.of(2024, 10, 2, 0, 0), assignment);
+        List<Task> tasks = List.of(new Task("A", 2.0), new Task("B", 2.0), new Task("C", 2.0), new Task("D", 2.0));
+        assertEquals(4, assignment.assign(day, tasks, day.getContext()).size());
+        for (int i = 0; i < 4; i++) {
+            assertEquals(LocalDateTime.of(2024, 10, 1, 5 + 2 * i, 0), day.getTimeBlocks().get(i).getStartTime());
+        }
+        assertEquals(true, day.isValid());
+    }
+}
@@ -0,0 +1,69 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * Every window of a Schedule where movable tasks are not allowed to go:
+ * the night (if the schedule's context checks for it), fixed blocks and
+ * blackouts.
+ * The Schedule compiles all of them into one sorted list of non-overlapping
+ * intervals (minutes since the schedule epoch) whenever one of them changes,
+ * so checking a candidate is a single binary search instead of redoing the
+ * date math for every position.
+ */
+public class AvailabilityProfile {
+
+    private int[] starts = new int[0];
+    private int[] ends = new int[0];
+
+    public int size() {return starts.length;}
+    public int getStart(int i) {return starts[i];}
+    public int getEnd(int i) {return ends[i];}
+
+    // Replace the windows with the first 'count' start/end pairs. They can be
+    // in any order and may overlap, they are sorted and merged here.
+    void compile(int[] windowStarts, int[] windowEnds, int count) {
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Integer.compare(windowStarts[a], windowStarts[b]));
+
+        int[] mergedStarts = new int[count];
+        int[] mergedEnds = new int[count];
+        int merged = 0;
+        for (int index : order) {
+            int start = windowStarts[index];
+            int end = windowEnds[index];
+            if (start >= end) {
+                continue;
+            }
+            if (merged > 0 && start <= mergedEnds[merged - 1]) {
+                mergedEnds[merged - 1] = Math.max(mergedEnds[merged - 1], end);
+            } else {
+                mergedStarts[merged] = start;
+                mergedEnds[merged] = end;
+                merged++;
+            }
+        }
+        starts = Arrays.copyOf(mergedStarts, merged);
+        ends = Arrays.copyOf(mergedEnds, merged);
+    }
+
+    // True if [start, end) does not touch any forbidden window.
+    public boolean isAvailable(int start, int end) {
+        // last window that starts before 'end'. Windows don't overlap so it is
+        // the only one that can still reach past 'start'.
+        int low = 0;
+        int high = starts.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (starts[mid] < end) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low == 0 || ends[low - 1] <= start;
+    }
+}
@@ -0,0 +1,43 @@
+package model;
+
+/**
+ * Test cases for the availability profile of a schedule.
+ */
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.Test;
+
+public class AvailabilityProfileTest {
+    // Fixed blocks and blackouts are off limits for movable tasks, the night
+    // only while the schedule's context checks for it.
+    @Test
+    public void testAvailabilityProfile() {
+        Schedule schedule = new Schedule(LocalDateTime.of(2024, 10, 1, 0, 0), LocalDateTime.of(2024, 10, 2, 0, 0),
+                new SequentialAlgorithm());
+        Task task1 = new Task("Task 1", 2.0);
+        Task task2 = new Task("Task 2", 1.5);
+        schedule.getContext().setNightCheck(false);
+        task1.setFixed(true);
+        schedule.addTimeBlockManually(new TimeBlock(task1,
+                LocalDateTime.of(2024, 10, 1, 10, 0), LocalDateTime.of(2024, 10, 1, 12, 0)));
+        schedule.addBlackout(LocalDateTime.of(2024, 10, 1, 14, 0), LocalDateTime.of(2024, 10, 1, 16, 0));
+        AvailabilityProfile availability = schedule.getAvailability();
+        assertEquals(2, availability.size(), "Fixed block and blackout");
+        assertEquals(true, availability.isAvailable(0, 60), "Night check is off");
+        assertEquals(false, availability.isAvailable(11 * 60, 13 * 60), "Overlaps the fixed block");
+        assertEquals(true, availability.isAvailable(12 * 60, 14 * 60), "Between the fixed block and the blackout");
+        assertEquals(false, schedule.isAvailable(15 * 60, 17 * 60), "Overlaps the blackout");
+
+        schedule.getContext().setNightCheck(true);
+        assertEquals(false, schedule.getAvailability().isAvailable(0, 60), "Night is picked up without a compile");
+
+        // only the movable block comes out
+        schedule.addTimeBlockManually(new TimeBlock(task2,
+                LocalDateTime.of(2024, 10, 1, 17, 0), LocalDateTime.of(2024, 10, 1, 18, 0)));
+        assertEquals(1, schedule.removeMovableTimeBlocks().size());
+        assertEquals(task1, schedule.getTimeBlocks().get(0).getTask());
+    }
+}
@@ -0,0 +1,295 @@
+package model;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Exact solver for small weeks (up to about 40-60 movable tasks). It
+ * minimizes the weighted tardiness: minutes late times 1 / priority, summed
+ * over all tasks (see ScheduleObjective.weightedTardiness).
+ *
+ * The search picks which task comes next and puts it in the first free
+ * run of minutes after the previous one (only the order matters, pushing a
+ * task later can never make it less late). Tasks are tried by deadline,
+ * then priority, so the first complete plan is the earliest-deadline one
+ * and usually already good. A branch is cut when
+ *   - a task has no free run left that is long enough (checked with the
+ *     longest run after each position, computed once),
+ *   - its cost plus the lateness every remaining task has at least can't
+ *     beat the best plan so far,
+ *   - the same set of tasks was already placed before, ending earlier or
+ *     at the same time for no more cost (memoized per set).
+ * When the time limit runs out the best plan found so far is used.
+ *
+ * Only reschedule and addTasks search. A single task added on its own goes
+ * in the earliest free spot and leaves the other blocks where they are, and
+ * a week with more than MAX_TASKS movable tasks is placed earliest deadline
+ * first, each task in the earliest free spot, instead of searched.
+ */
+public class BranchAndBoundAlgorithm implements Algorithm {
+    private final Duration timeLimit;
+
+    // more tasks than this don't fit in the set bitmask
+    private static final int MAX_TASKS = 63;
+    private static final int MAX_MEMO = 1_000_000;
+
+    // how the last search on a schedule went, kept in its context
+    private static final class LastSolve {
+        final boolean optimal;
+
+        LastSolve(boolean optimal) {
+            this.optimal = optimal;
+        }
+    }
+
+    public BranchAndBoundAlgorithm() {
+        this(Duration.ofMillis(500));
+    }
+
+    public BranchAndBoundAlgorithm(Duration timeLimit) {
+        this.timeLimit = timeLimit;
+    }
+
+    @Override
+    public TimeBlock applyAlgorithm(Schedule schedule, Task task, SchedulingContext context) {
+        TimeBlock timeBlock = new TimeBlock(task, schedule.getStartTime(), schedule.getStartTime());
+        if (!placeEarliest(schedule, timeBlock)) {
+            System.out.println("No room to add task " + task.getDescription() + ".");
+            return null;
+        }
+        return timeBlock;
+    }
+
+    // Add several tasks with one search instead of one per task. Returns
+    // their blocks in the same order, or null (and nothing changes) if they
+    // can't all fit.
+    public List<TimeBlock> addTasks(Schedule schedule, List<Task> tasks) {
+        List<TimeBlock> extra = new ArrayList<>(tasks.size());
+        for (Task task : tasks) {
+            extra.add(new TimeBlock(task, schedule.getStartTime(), schedule.getStartTime()));
+        }
+        return solve(schedule, extra) ? extra : null;
+    }
+
+    // Place every movable block again in the best order found.
+    public void reschedule(Schedule schedule) {
+        if (!solve(schedule, List.of())) {
+            System.out.println("Could not reschedule and fit all blocks within calendar week");
+        }
+    }
+
+    // true if the last search on this schedule finished before the time limit
+    public boolean wasLastSolveOptimal(Schedule schedule) {
+        LastSolve last = schedule.getContext().getState(LastSolve.class);
+        return last != null && last.optimal;
+    }
+
+    /*
+     * Take the movable blocks out (plus the 'extra' new ones), search and
+     * put them back where the best plan says. Leaves the schedule as it was
+     * and returns false if there is no plan where everything fits.
+     */
+    private boolean solve(Schedule schedule, List<TimeBlock> extra) {
+        Schedule.Savepoint savepoint = schedule.begin();
+        // blocks without a task have nothing to order by, they stay put
+        List<TimeBlock> blocks = schedule.removeTimeBlocksIf(t -> t.getTask() != null && !t.getTask().isFixed());
+        blocks.addAll(extra);
+        blocks.sort(Comparator
+                .comparing((TimeBlock t) -> t.getTask().getDeadline(), Comparator.nullsLast(Comparator.naturalOrder()))
+                .thenComparing(t -> t.getTask().getPriority(), Comparator.nullsLast(Comparator.naturalOrder())));
+        if (blocks.size() > MAX_TASKS) {
+            // too many for the set bitmask, earliest deadline first will do
+            schedule.getContext().setState(LastSolve.class, new LastSolve(false));
+            for (TimeBlock timeBlock : blocks) {
+                if (!placeEarliest(schedule, timeBlock)) {
+                    schedule.rollback(savepoint);
+                    return false;
+                }
+            }
+            schedule.commit(savepoint);
+            return true;
+        }
+
+        Search search = new Search(schedule, blocks, System.nanoTime() + timeLimit.toNanos());
+        search.run(0, 0L, schedule.getStartMinute(), 0);
+        schedule.getContext().setState(LastSolve.class, new LastSolve(!search.outOfTime));
+        if (search.bestStarts == null) {
+            schedule.rollback(savepoint);
+            return false;
+        }
+        for (int i = 0; i < blocks.size(); i++) {
+            TimeBlock timeBlock = blocks.get(i);
+            LocalDateTime start = schedule.fromMinutes(search.bestStarts[i]);
+            timeBlock.setStartTime(start);
+            timeBlock.setEndTime(start.plusMinutes(search.length[i]));
+            schedule.addTimeBlock(timeBlock);
+        }
+        schedule.commit(savepoint);
+        return true;
+    }
+
+    // Move the block (same length) to the earliest free spot and add it.
+    private static boolean placeEarliest(Schedule schedule, TimeBlock timeBlock) {
+        int length = (int) (timeBlock.getTask().getEstimatedTime() * 60);
+        int start = schedule.getOccupancy().firstFit(schedule.getStartMinute(), length, true);
+        if (start < 0 || start + length > schedule.getEndMinute()) {
+            return false;
+        }
+        timeBlock.setStartTime(schedule.fromMinutes(start));
+        timeBlock.setEndTime(schedule.fromMinutes(start + length));
+        schedule.addTimeBlock(timeBlock);
+        return true;
+    }
+
+    private static class Search {
+        final int n;
+        final int[] length;
+        final int[] deadline;
+        final double[] weight;
+        // free runs of the week without the movable blocks, and the longest
+        // run from each one on
+        final int[] runs;
+        final int[] longestFrom;
+        final long stopAt;
+        // per set of placed tasks: {end, cost} pairs seen so far
+        final Map<Long, List<double[]>> memo = new HashMap<>();
+        int memoSize = 0;
+        long nodes = 0;
+        boolean outOfTime = false;
+
+        final int[] starts;
+        int[] bestStarts;
+        double bestCost = Double.POSITIVE_INFINITY;
+
+        Search(Schedule schedule, List<TimeBlock> blocks, long stopAt) {
+            n = blocks.size();
+            length = new int[n];
+            deadline = new int[n];
+            weight = new double[n];
+            starts = new int[n];
+            for (int i = 0; i < n; i++) {
+                Task task = blocks.get(i).getTask();
+                length[i] = (int) (task.getEstimatedTime() * 60);
+                deadline[i] = task.getDeadline() == null ? Integer.MAX_VALUE / 2 : schedule.toMinutes(task.getDeadline());
+                weight[i] = 1.0 / (task.getPriority() == null ? 5 : Math.max(1, task.getPriority()));
+            }
+            runs = schedule.getOccupancy().freeRuns(true);
+            longestFrom = new int[runs.length / 2 + 1];
+            for (int r = runs.length / 2 - 1; r >= 0; r--) {
+                longestFrom[r] = Math.max(longestFrom[r + 1], runs[2 * r + 1] - runs[2 * r]);
+            }
+            this.stopAt = stopAt;
+        }
+
+        // First start >= time where 'length' minutes are free, or -1.
+        int earliestFit(int time, int length) {
+            // first run that ends after 'time'
+            int low = 0;
+            int high = runs.length / 2;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (runs[2 * mid + 1] <= time) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            for (int r = low; r < runs.length / 2; r++) {
+                if (longestFrom[r] < length) {
+                    return -1;
+                }
+                int start = Math.max(runs[2 * r], time);
+                if (runs[2 * r + 1] - start >= length) {
+                    return start;
+                }
+            }
+            return -1;
+        }
+
+        void run(int depth, long placed, int time, double cost) {
+            // stop at the time limit or when someone cancels us (see PortfolioAlgorithm)
+            if ((++nodes & 1023) == 0 && (System.nanoTime() > stopAt || Thread.currentThread().isInterrupted())) {
+                outOfTime = true;
+            }
+            if (outOfTime) {
+                return;
+            }
+            if (depth == n) {
+                if (cost < bestCost) {
+                    bestCost = cost;
+                    bestStarts = starts.clone();
+                }
+                return;
+            }
+            if (cost + lowerBound(placed, time) >= bestCost || dominated(placed, time, cost)) {
+                return;
+            }
+            for (int i = 0; i < n; i++) {
+                if ((placed & (1L << i)) != 0) {
+                    continue;
+                }
+                int start = earliestFit(time, length[i]);
+                if (start < 0) {
+                    // no room for this one anymore, so no complete plan below
+                    return;
+                }
+                int end = start + length[i];
+                starts[i] = start;
+                run(depth + 1, placed | (1L << i), end, cost + weight[i] * Math.max(0, end - deadline[i]));
+                if (bestCost == 0 || outOfTime) {
+                    return;
+                }
+            }
+        }
+
+        // Every task left ends at least its length after 'time', and one of
+        // them ends after all of them are done. Take whichever says more.
+        double lowerBound(long placed, int time) {
+            double eachAlone = 0;
+            int remaining = 0;
+            for (int i = 0; i < n; i++) {
+                if ((placed & (1L << i)) == 0) {
+                    eachAlone += weight[i] * Math.max(0, time + length[i] - deadline[i]);
+                    remaining += length[i];
+                }
+            }
+            double last = Double.POSITIVE_INFINITY;
+            for (int i = 0; i < n; i++) {
+                if ((placed & (1L << i)) == 0) {
+                    last = Math.min(last, weight[i] * Math.max(0, time + remaining - deadline[i]));
+                }
+            }
+            return Math.max(eachAlone, last);
+        }
+
+        // Was this set already placed ending no later for no more cost? If
+        // not, remember this state.
+        boolean dominated(long placed, int time, double cost) {
+            List<double[]> seen = memo.get(placed);
+            if (seen != null) {
+                for (double[] state : seen) {
+                    if (state[0] <= time && state[1] <= cost) {
+                        return true;
+                    }
+                }
+            }
+            if (memoSize < MAX_MEMO) {
+                if (seen == null) {
+                    seen = new ArrayList<>(2);
+                    memo.put(placed, seen);
+                }
+                seen.add(new double[] {time, cost});
+                memoSize++;
+            }
+            return false;
+        }
+    }
+
+    public Duration getTimeLimit() {
+        return timeLimit;
+    }
+}
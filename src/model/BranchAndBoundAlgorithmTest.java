@@ -0,0 +1,64 @@
+package model;
+
+/**
+ * Test cases for the exact solver.
+ */
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.Test;
+
+public class BranchAndBoundAlgorithmTest {
+    // Earliest deadline first would run the long task first and make the
+    // important one 2 hours late. The exact solver swaps them, only the
+    // unimportant task ends up late.
+    @Test
+    public void testBranchAndBoundAlgorithm() {
+        Schedule schedule = new Schedule(LocalDateTime.of(2024, 10, 1, 0, 0), LocalDateTime.of(2024, 10, 2, 0, 0),
+                new SequentialAlgorithm());
+        BranchAndBoundAlgorithm exact = new BranchAndBoundAlgorithm();
+        schedule.getContext().setNightCheck(false);
+        schedule.setAlgorithm(exact);
+        Task unimportant = new Task("Unimportant", 5, 3.0, LocalDateTime.of(2024, 10, 1, 2, 0), false);
+        Task important = new Task("Important", 1, 2.0, LocalDateTime.of(2024, 10, 1, 3, 0), false);
+        schedule.addTask(unimportant);
+        schedule.addTask(important);
+
+        exact.reschedule(schedule);
+        assertEquals(true, exact.wasLastSolveOptimal(schedule));
+        assertEquals(LocalDateTime.of(2024, 10, 1, 0, 0), schedule.getTimeBlockByTaskId(important.getId()).getStartTime());
+        assertEquals(LocalDateTime.of(2024, 10, 1, 2, 0), schedule.getTimeBlockByTaskId(unimportant.getId()).getStartTime());
+        assertEquals(36.0, ScheduleObjective.weightedTardiness().score(schedule), 1e-9,
+                "3 hours late at priority 5");
+        assertEquals(true, schedule.isValid());
+    }
+
+    // Adding one task doesn't search, the blocks that are there stay where
+    // they are. A week with more movable tasks than the search can take
+    // still gets new tasks and is rescheduled earliest deadline first.
+    @Test
+    public void testSingleAddAndLargeWeek() {
+        LocalDateTime weekStart = LocalDateTime.of(2024, 10, 7, 0, 0);
+        BranchAndBoundAlgorithm exact = new BranchAndBoundAlgorithm();
+        Schedule week = new Schedule(weekStart, weekStart.plusDays(7), exact);
+        TimeBlock late = new TimeBlock(new Task("Late", 5, 1.0, weekStart.plusDays(6), false),
+                weekStart.plusDays(3).plusHours(9), weekStart.plusDays(3).plusHours(10));
+        week.addTimeBlockManually(late);
+        Task urgent = new Task("Urgent", 1, 1.0, weekStart.plusHours(6), false);
+        assertEquals(weekStart.plusHours(5), week.addTask(urgent).getStartTime(), "Earliest free spot");
+        assertEquals(weekStart.plusDays(3).plusHours(9), late.getStartTime(), "Not moved by the add");
+
+        for (int i = 0; i < 70; i++) {
+            assertEquals(true, week.addTask(new Task("Task " + i, 0.5)) != null, "Room for task " + i);
+        }
+        assertEquals(72, week.getTimeBlocks().size());
+        exact.reschedule(week);
+        assertEquals(false, exact.wasLastSolveOptimal(week));
+        assertEquals(72, week.getTimeBlocks().size());
+        assertEquals(weekStart.plusHours(5), week.getTimeBlockByTaskId(urgent.getId()).getStartTime(),
+                "Earliest deadline first");
+        assertEquals(true, week.isValid());
+    }
+}
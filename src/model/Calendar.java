@@ -2,20 +2,30 @@ package model;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.LinkedList;
 import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
 
 public class Calendar {
 
-	private List<CalendarWeek> calendarWeeks;
+	// Monday 00:00 of the week -> the week, in order. Weeks don't have to
+	// follow each other, the ones in between are made when they are needed.
+	private TreeMap<LocalDateTime, CalendarWeek> calendarWeeks;
 	private CalendarWeek currentWeek;
 	public Algorithm algorithm;
+	// every week's random numbers are seeded from here
+	private final Random seeds;
 
 	public Calendar(LocalDateTime startTime, Algorithm algorithm) {
+		this(startTime, algorithm, new Random().nextLong());
+	}
+
+	// Same seed, same weeks (as long as they are made in the same order).
+	public Calendar(LocalDateTime startTime, Algorithm algorithm, long seed) {
 		this.algorithm = algorithm;
-		this.calendarWeeks = new LinkedList<>();
-		this.calendarWeeks.add(new CalendarWeek(startTime, algorithm));
-		this.currentWeek = calendarWeeks.get(0);
+		this.seeds = new Random(seed);
+		this.calendarWeeks = new TreeMap<>();
+		this.currentWeek = getOrCreateWeek(startTime);
 		// loadWeeksFromFiles();
 	}
 
@@ -35,28 +45,41 @@ public class Calendar {
 
 	private CalendarWeek getWeekFromDate(String dateString) {
 		LocalDate date = LocalDate.parse(dateString, DateTimeFormatter.ISO_LOCAL_DATE);
-		// check if the week already exists.
-		for (CalendarWeek week : calendarWeeks) {
-			if (week.getStartTime().toLocalDate().equals(date)) {
-				return week;
-			}
+		// the week if it already exists, otherwise a new one
+		return getOrCreateWeek(date.atStartOfDay());
+	}
+
+	// The week whose Monday is 'weekStart', or null if it wasn't made yet.
+	public CalendarWeek getWeek(LocalDateTime weekStart) {
+		return calendarWeeks.get(weekStart.toLocalDate().atStartOfDay());
+	}
+
+	// The week that contains 'anyDate', made (and put in order) if needed.
+	public CalendarWeek getOrCreateWeek(LocalDateTime anyDate) {
+		CalendarWeek existing = getWeek(CalendarWeek.weekStartOf(anyDate));
+		if (existing != null) {
+			return existing;
 		}
-		// doesn't exist. Make a new object
-		CalendarWeek newCalendarWeek = new CalendarWeek(date.atStartOfDay(), algorithm);
-		calendarWeeks.add(newCalendarWeek);
-		return newCalendarWeek;
+		CalendarWeek week = newWeek(anyDate);
+		calendarWeeks.put(keyOf(week), week);
+		return week;
+	}
+
+	// All the weeks that were made, in order.
+	public List<CalendarWeek> getWeeks() {
+		return List.copyOf(calendarWeeks.values());
 	}
 		
 			// unsure how to use the function (Ivan)
 	public void loadWeeksFromFiles() {
-        for (CalendarWeek week : calendarWeeks) {
+        for (CalendarWeek week : calendarWeeks.values()) {
             String filePath = "tasks_" + week.getStartTime().toLocalDate() + ".json";
             week.getSchedule().loadTasksFromFile(filePath);
         }
     }
 
     public void saveWeeksToFiles(String filename) {
-        for (CalendarWeek week : calendarWeeks) {
+        for (CalendarWeek week : calendarWeeks.values()) {
             String filePath = "savedSchedules/tasks_"
 				+ week.getStartTime().toLocalDate() + "_"
 				+ filename + ".json";
@@ -68,35 +91,43 @@ public class Calendar {
 	}
 
 	public void setCurrentWeek(CalendarWeek newWeek) {
-		calendarWeeks.set(calendarWeeks.indexOf(currentWeek), newWeek);
+		calendarWeeks.remove(keyOf(currentWeek));
+		calendarWeeks.put(keyOf(newWeek), newWeek);
 		currentWeek = newWeek;
 	}
 
+	// Go by date, not by the order of the weeks that were made: a week that
+	// is skipped over (e.g. made by the CalendarScheduler) is made now.
 	public void forwardOneWeek() {
-		if (calendarWeeks.indexOf(currentWeek) < calendarWeeks.size() - 1) {
-			currentWeek = calendarWeeks.get(calendarWeeks.indexOf(currentWeek) + 1);
-		}
-		else {
-			addNextWeek();
-			currentWeek = calendarWeeks.get(calendarWeeks.size() - 1);
-		}
+		currentWeek = addNextWeek();
 	}
 
+	// Not before the first week of the calendar.
 	public void backOneWeek() {
-		if (calendarWeeks.indexOf(currentWeek) != 0) {
-			currentWeek = calendarWeeks.get(calendarWeeks.indexOf(currentWeek) - 1);
+		if (calendarWeeks.firstKey().isBefore(keyOf(currentWeek))) {
+			currentWeek = getOrCreateWeek(keyOf(currentWeek).minusWeeks(1));
 		}
 	}
 	
-	public void addNextWeek() {
-		LocalDateTime nextWeekStart = currentWeek.getStartTime().plusDays(7); // Increment by 7 days from the start of the current week
-        calendarWeeks.add(new CalendarWeek(nextWeekStart, algorithm));
+	public CalendarWeek addNextWeek() {
+		LocalDateTime nextWeekStart = keyOf(currentWeek).plusDays(7); // Increment by 7 days from the start of the current week
 		//newWeekStart.getSchedule().saveTasksToFile("tasks_" + startTime.toLocalDate() + ".json");
-    
+		return getOrCreateWeek(nextWeekStart);
 	}
 	
+	// A week of this calendar with its own seed.
+	private CalendarWeek newWeek(LocalDateTime anyDate) {
+		CalendarWeek week = new CalendarWeek(anyDate, algorithm);
+		week.getSchedule().getContext().reseed(seeds.nextLong());
+		return week;
+	}
+
+	private static LocalDateTime keyOf(CalendarWeek week) {
+		return week.getFirstDayOfWeek().atStartOfDay();
+	}
+
 	public void removeOldWeek() {
-		calendarWeeks.remove(0);
+		calendarWeeks.pollFirstEntry();
 	}
 	
 	// TODO more functions to manipulate a calendar at a broad level
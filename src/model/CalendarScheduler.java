@@ -0,0 +1,284 @@
+package model;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * Schedules tasks over all the weeks of a Calendar instead of one week.
+ * A task goes into the earliest week where it still fits before its
+ * deadline, placed by that week's own algorithm. If the algorithm can't
+ * place it there, or puts it past the deadline, it takes the earliest
+ * spot before the deadline in that week instead.
+ *
+ * Finding the week goes through one index over every week of the
+ * horizon: a max tree over the longest free run of each week (night and
+ * fixed blocks taken out), so the earliest week with a run long enough is
+ * found in O(log weeks) without looking at the weeks in between. A block
+ * can't run from one week into the next, so the free runs stop at the
+ * week boundaries and a task always fits inside one week. Weeks that don't
+ * exist yet count as empty weeks and the CalendarWeek is only made when a
+ * task is actually put in it.
+ */
+public class CalendarScheduler {
+    private final Calendar calendar;
+    // tasks without a deadline can go this many weeks ahead
+    private final int horizonWeeks;
+    // week start -> what is still free there, for the weeks that exist
+    private final TreeMap<LocalDateTime, WeekGaps> weeks = new TreeMap<>();
+    // what a week that wasn't made yet looks like
+    private final Schedule template;
+    private final WeekGaps emptyWeek;
+    // the index: leaf i is the longest free run of week 'origin' + i, every
+    // other node the largest of its two children. 'leaves' is a power of two.
+    private LocalDateTime origin;
+    private int leaves;
+    private int[] longestRuns;
+
+    private static final class WeekGaps {
+        CalendarWeek week; // null until something is put in it
+        long freeMinutes;
+        int longestRun;
+        long modCount; // of the week's schedule when it was measured
+    }
+
+    public CalendarScheduler(Calendar calendar) {
+        this(calendar, 13); // about a quarter
+    }
+
+    public CalendarScheduler(Calendar calendar, int horizonWeeks) {
+        this.calendar = calendar;
+        this.horizonWeeks = horizonWeeks;
+        LocalDateTime first = CalendarWeek.weekStartOf(calendar.getCurrentWeek().getStartTime());
+        template = new Schedule(first, first.plusDays(7), calendar.algorithm);
+        emptyWeek = measure(template);
+        leaves = Integer.highestOneBit(Math.max(1, horizonWeeks - 1)) << 1;
+        refresh();
+    }
+
+    /*
+     * Place the tasks earliest deadline first (the longest first when the
+     * deadlines are the same), so the tasks with the least choice go before
+     * the others take their room. A task that can't make its deadline goes
+     * in the first week where it fits. Returns the placed blocks.
+     */
+    public List<TimeBlock> scheduleTasks(Collection<Task> tasks) {
+        List<Task> ordered = new ArrayList<>(tasks);
+        ordered.sort(Comparator
+                .comparing(Task::getDeadline, Comparator.nullsLast(Comparator.naturalOrder()))
+                .thenComparing(Comparator.comparingDouble(Task::getEstimatedTime).reversed()));
+        refresh();
+        List<TimeBlock> placed = new ArrayList<>(ordered.size());
+        for (Task task : ordered) {
+            TimeBlock timeBlock = place(task);
+            if (timeBlock != null) {
+                placed.add(timeBlock);
+            }
+        }
+        return placed;
+    }
+
+    public TimeBlock scheduleTask(Task task) {
+        refresh();
+        return place(task);
+    }
+
+    private TimeBlock place(Task task) {
+        int length = (int) (task.getEstimatedTime() * 60);
+        LocalDateTime deadline = task.getDeadline();
+        // the weeks that start before the deadline
+        int beforeDeadline = deadline == null ? horizonWeeks : weeksBefore(deadline);
+        for (int i = firstFit(0, beforeDeadline, length); i >= 0; i = firstFit(i + 1, beforeDeadline, length)) {
+            TimeBlock timeBlock = placeInWeek(i, task, length, deadline);
+            if (timeBlock != null) {
+                return timeBlock;
+            }
+        }
+
+        // late: the first week where it fits at all
+        for (int i = firstFit(0, horizonWeeks, length); i >= 0; i = firstFit(i + 1, horizonWeeks, length)) {
+            TimeBlock timeBlock = placeInWeek(i, task, length, null);
+            if (timeBlock != null) {
+                System.out.println("Task " + task.getDescription() + " will be late.");
+                return timeBlock;
+            }
+        }
+        System.out.println("No room to add task " + task.getDescription() + " in the next " + horizonWeeks + " weeks.");
+        return null;
+    }
+
+    /*
+     * Put the task in week 'i' of the index with the week's algorithm, so
+     * that it ends before 'deadline' (if not null). Makes the week if it
+     * didn't exist yet. Returns null and leaves the week as it was if it
+     * doesn't fit.
+     */
+    private TimeBlock placeInWeek(int i, Task task, int length, LocalDateTime deadline) {
+        LocalDateTime weekStart = origin.plusWeeks(i);
+        WeekGaps gaps = gapsOf(weekStart);
+        if (gaps.week == null) {
+            if (deadline != null && !fitsEmptyWeek(weekStart, length, deadline)) {
+                return null;
+            }
+            gaps = measureNew(weekStart);
+        }
+        Schedule schedule = gaps.week.getSchedule();
+        Schedule.Savepoint savepoint = schedule.begin();
+        TimeBlock timeBlock = schedule.addTask(task);
+        if (timeBlock == null || (deadline != null && timeBlock.getEndTime().isAfter(deadline))) {
+            // the algorithm didn't find it a spot in time, the earliest one will do
+            schedule.rollback(savepoint);
+            savepoint = schedule.begin();
+            timeBlock = earliestSpot(schedule, task, length, deadline);
+        }
+        if (timeBlock == null) {
+            schedule.rollback(savepoint);
+            return null;
+        }
+        schedule.commit(savepoint);
+        remeasure(i, gaps);
+        return timeBlock;
+    }
+
+    // Earliest spot in the schedule that ends before 'deadline' (if not null).
+    private static TimeBlock earliestSpot(Schedule schedule, Task task, int length, LocalDateTime deadline) {
+        int start = schedule.getOccupancy().firstFit(schedule.getStartMinute(), length, true);
+        if (start < 0 || (deadline != null && schedule.fromMinutes(start + length).isAfter(deadline))) {
+            return null;
+        }
+        TimeBlock timeBlock = new TimeBlock(task, schedule.fromMinutes(start), schedule.fromMinutes(start + length));
+        schedule.addTimeBlock(timeBlock);
+        return timeBlock;
+    }
+
+    // Without making the week: every empty week looks like the template, so
+    // the first fit is the same number of minutes after the start.
+    private boolean fitsEmptyWeek(LocalDateTime weekStart, int length, LocalDateTime deadline) {
+        int start = template.getOccupancy().firstFit(template.getStartMinute(), length, true);
+        return start >= 0
+                && !weekStart.plusMinutes(start - template.getStartMinute() + length).isAfter(deadline);
+    }
+
+    // How many weeks of the horizon start before 'time'.
+    private int weeksBefore(LocalDateTime time) {
+        if (!time.isAfter(origin)) {
+            return 0;
+        }
+        long minutes = ChronoUnit.MINUTES.between(origin, time);
+        return (int) Math.min(horizonWeeks, (minutes + 7 * 24 * 60 - 1) / (7 * 24 * 60));
+    }
+
+    /*
+     * Bring the index up to date with the calendar: start it over if the
+     * current week moved, and measure the weeks that were made or changed
+     * (their modCount) since the last call. Weeks that didn't change cost
+     * one comparison.
+     */
+    private void refresh() {
+        LocalDateTime first = CalendarWeek.weekStartOf(calendar.getCurrentWeek().getStartTime());
+        boolean moved = !first.equals(origin);
+        if (moved) {
+            origin = first;
+            longestRuns = new int[2 * leaves];
+        }
+        for (CalendarWeek week : calendar.getWeeks()) {
+            LocalDateTime weekStart = CalendarWeek.weekStartOf(week.getStartTime());
+            WeekGaps gaps = weeks.get(weekStart);
+            if (gaps == null || gaps.modCount != week.getSchedule().getModCount()) {
+                gaps = measure(week.getSchedule());
+                gaps.week = week;
+                weeks.put(weekStart, gaps);
+                if (!moved) {
+                    setLongestRun(indexOf(weekStart), gaps.longestRun);
+                }
+            }
+        }
+        if (moved) {
+            for (int i = 0; i < leaves; i++) {
+                longestRuns[leaves + i] = i < horizonWeeks ? gapsOf(origin.plusWeeks(i)).longestRun : 0;
+            }
+            for (int node = leaves - 1; node >= 1; node--) {
+                longestRuns[node] = Math.max(longestRuns[2 * node], longestRuns[2 * node + 1]);
+            }
+        }
+    }
+
+    private int indexOf(LocalDateTime weekStart) {
+        return (int) ChronoUnit.WEEKS.between(origin, weekStart);
+    }
+
+    private void setLongestRun(int i, int longestRun) {
+        if (i < 0 || i >= horizonWeeks) {
+            return;
+        }
+        int node = leaves + i;
+        longestRuns[node] = longestRun;
+        for (node >>= 1; node >= 1; node >>= 1) {
+            longestRuns[node] = Math.max(longestRuns[2 * node], longestRuns[2 * node + 1]);
+        }
+    }
+
+    // First week in [from, to) with a free run of at least 'length' minutes, or -1.
+    private int firstFit(int from, int to, int length) {
+        return firstFit(1, 0, leaves, from, to, length);
+    }
+
+    // The same inside the subtree of 'node', which covers weeks [low, high).
+    private int firstFit(int node, int low, int high, int from, int to, int length) {
+        if (high <= from || low >= to || longestRuns[node] < length) {
+            return -1;
+        }
+        if (high - low == 1) {
+            return low;
+        }
+        int middle = (low + high) >>> 1;
+        int found = firstFit(2 * node, low, middle, from, to, length);
+        return found >= 0 ? found : firstFit(2 * node + 1, middle, high, from, to, length);
+    }
+
+    private WeekGaps measureNew(LocalDateTime weekStart) {
+        CalendarWeek week = calendar.getOrCreateWeek(weekStart);
+        WeekGaps gaps = measure(week.getSchedule());
+        gaps.week = week;
+        weeks.put(weekStart, gaps);
+        return gaps;
+    }
+
+    private void remeasure(int i, WeekGaps gaps) {
+        WeekGaps updated = measure(gaps.week.getSchedule());
+        gaps.freeMinutes = updated.freeMinutes;
+        gaps.longestRun = updated.longestRun;
+        gaps.modCount = updated.modCount;
+        setLongestRun(i, gaps.longestRun);
+    }
+
+    private WeekGaps gapsOf(LocalDateTime weekStart) {
+        WeekGaps gaps = weeks.get(weekStart);
+        return gaps == null ? emptyWeek : gaps;
+    }
+
+    private static WeekGaps measure(Schedule schedule) {
+        WeekGaps gaps = new WeekGaps();
+        int[] runs = schedule.getOccupancy().freeRuns(true);
+        for (int i = 0; i < runs.length; i += 2) {
+            gaps.freeMinutes += runs[i + 1] - runs[i];
+            gaps.longestRun = Math.max(gaps.longestRun, runs[i + 1] - runs[i]);
+        }
+        gaps.modCount = schedule.getModCount();
+        return gaps;
+    }
+
+    // Free minutes left per week, in order, for the weeks that exist.
+    public TreeMap<LocalDateTime, Long> getFreeMinutesPerWeek() {
+        refresh();
+        TreeMap<LocalDateTime, Long> free = new TreeMap<>();
+        for (var entry : weeks.entrySet()) {
+            free.put(entry.getKey(), entry.getValue().freeMinutes);
+        }
+        return free;
+    }
+}
@@ -0,0 +1,67 @@
+package model;
+
+/**
+ * Test cases for scheduling across the weeks of a calendar.
+ */
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.Test;
+
+public class CalendarSchedulerTest {
+    // Every task goes in the earliest week where it makes its deadline, put
+    // there by the week's own algorithm (as late as possible). Only when the
+    // current week is full is the next one made. A late task goes in the
+    // first week with room, at the earliest spot when the algorithm refuses.
+    @Test
+    public void testCalendarScheduler() {
+        Task task3 = new Task("Task 3", 3.0);
+        Calendar calendar = new Calendar(LocalDateTime.of(2024, 10, 7, 0, 0), new DeadlineAlgorithm());
+        calendar.getCurrentWeek().getSchedule().addTimeBlockManually(new TimeBlock(task3,
+                LocalDateTime.of(2024, 10, 7, 9, 0), LocalDateTime.of(2024, 10, 7, 12, 0)));
+        CalendarScheduler scheduler = new CalendarScheduler(calendar);
+
+        Task soon = new Task("Soon", 3, 1.0, LocalDateTime.of(2024, 10, 8, 12, 0), false);
+        TimeBlock soonBlock = scheduler.scheduleTask(soon);
+        assertEquals(LocalDateTime.of(2024, 10, 8, 11, 0), soonBlock.getStartTime(), "Latest before the deadline");
+        assertEquals(true, calendar.getCurrentWeek().getSchedule().containsTimeBlock(soonBlock));
+
+        Task later = new Task("Later", 3, 2.0, LocalDateTime.of(2024, 10, 25, 12, 0), false);
+        assertEquals(LocalDateTime.of(2024, 10, 13, 20, 0), scheduler.scheduleTask(later).getStartTime(),
+                "Still fits this week");
+        assertEquals(1, calendar.getWeeks().size(), "No other week is made");
+
+        calendar.getCurrentWeek().getSchedule().addBlackout(LocalDateTime.of(2024, 10, 7, 0, 0),
+                LocalDateTime.of(2024, 10, 14, 0, 0));
+        Task next = new Task("Next", 3, 1.0, LocalDateTime.of(2024, 10, 25, 12, 0), false);
+        assertEquals(LocalDateTime.of(2024, 10, 20, 21, 0), scheduler.scheduleTask(next).getStartTime(),
+                "This week is blacked out");
+        assertEquals(2, calendar.getWeeks().size(), "Week 3 is not made");
+
+        Task overdue = new Task("Overdue", 3, 1.0, LocalDateTime.of(2024, 10, 1, 12, 0), false);
+        assertEquals(LocalDateTime.of(2024, 10, 14, 5, 0), scheduler.scheduleTask(overdue).getStartTime(),
+                "Late, so as soon as possible");
+        assertEquals(2, calendar.getWeeks().size());
+        assertEquals(17 * 60 * 7 - 2 * 60, scheduler.getFreeMinutesPerWeek().get(LocalDateTime.of(2024, 10, 14, 0, 0)));
+    }
+
+    // A week made far ahead is found by the index like any other week.
+    @Test
+    public void testCalendarSchedulerFindsWeekMadeAhead() {
+        Calendar calendar = new Calendar(LocalDateTime.of(2024, 10, 7, 0, 0), new DeadlineAlgorithm());
+        CalendarScheduler scheduler = new CalendarScheduler(calendar, 8);
+        // every week but the fourth is blacked out
+        for (int week = 0; week < 8; week++) {
+            LocalDateTime start = LocalDateTime.of(2024, 10, 7, 0, 0).plusWeeks(week);
+            if (week != 3) {
+                calendar.getOrCreateWeek(start).getSchedule().addBlackout(start, start.plusWeeks(1));
+            }
+        }
+        Task task = new Task("Task", 3, 4.0, null, false);
+        TimeBlock timeBlock = scheduler.scheduleTask(task);
+        assertEquals(true, calendar.getWeek(LocalDateTime.of(2024, 10, 28, 0, 0)).getSchedule().containsTimeBlock(timeBlock));
+        assertEquals(null, scheduler.scheduleTask(new Task("Too long", 3, 18.0, null, false)), "No run of 18 hours");
+    }
+}
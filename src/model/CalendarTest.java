@@ -0,0 +1,43 @@
+package model;
+
+/**
+ * Test cases for moving between the weeks of a calendar.
+ */
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.Test;
+
+public class CalendarTest {
+    private static final LocalDateTime MONDAY = LocalDateTime.of(2024, 10, 7, 0, 0);
+
+    // A week made three weeks ahead doesn't make forward skip the two in
+    // between, they are made on the way and kept in order.
+    @Test
+    public void testNavigateByDate() {
+        Calendar calendar = new Calendar(MONDAY, new SequentialAlgorithm());
+        CalendarWeek ahead = calendar.getOrCreateWeek(MONDAY.plusWeeks(3).plusDays(2));
+        assertEquals(MONDAY.plusWeeks(3), ahead.getStartTime());
+        assertEquals(2, calendar.getWeeks().size());
+
+        calendar.forwardOneWeek();
+        assertEquals(MONDAY.plusWeeks(1), calendar.getCurrentWeek().getStartTime(), "The next week, not the next one made");
+        calendar.forwardOneWeek();
+        calendar.forwardOneWeek();
+        assertEquals(ahead, calendar.getCurrentWeek(), "The week that was made ahead");
+        assertEquals(4, calendar.getWeeks().size());
+        for (int week = 0; week < 4; week++) {
+            assertEquals(MONDAY.plusWeeks(week), calendar.getWeeks().get(week).getStartTime(), "In order");
+        }
+
+        calendar.backOneWeek();
+        assertEquals(MONDAY.plusWeeks(2), calendar.getCurrentWeek().getStartTime());
+        assertEquals(calendar.getWeek(MONDAY.plusWeeks(2)), calendar.getCurrentWeek());
+        calendar.backOneWeek();
+        calendar.backOneWeek();
+        calendar.backOneWeek();
+        assertEquals(MONDAY, calendar.getCurrentWeek().getStartTime(), "Not before the first week");
+    }
+}
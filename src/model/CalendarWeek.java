@@ -17,7 +17,7 @@ public class CalendarWeek {
 		// We either use getFirstDayOfWeek() to get the absolute start of the week
 		// or getStartTime() to get the start of the allowed schedule of the week
 		// (for the algorithm)
-		LocalDateTime startTime = anyDate.toLocalDate().atStartOfDay().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+		LocalDateTime startTime = weekStartOf(anyDate);
 		// this.startTime = anyDate;
         LocalDateTime endTime = startTime.plusDays(7);
 
@@ -31,6 +31,11 @@ public class CalendarWeek {
 							   " - " + beforeEnd.getMonthValue() + "/" + beforeEnd.getDayOfMonth() + "/" + beforeEnd.getYear();
 	}
 	
+	// Monday 00:00 of the week 'anyDate' is in.
+	public static LocalDateTime weekStartOf(LocalDateTime anyDate) {
+		return anyDate.toLocalDate().atStartOfDay().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+	}
+
 	public Schedule getSchedule() {
 		return weekSchedule;
 	}
@@ -72,17 +77,8 @@ public class CalendarWeek {
 		
 		LocalDateTime dayStart = getFirstDayOfWeek().plusDays(day - 1).atStartOfDay();
     	LocalDateTime dayEnd = dayStart.plusDays(1);
-		
-		List<TimeBlock> tasksForDay = new ArrayList<>();
-
-		for (TimeBlock timeBlock : weekSchedule.getTimeBlocks()) {
-			LocalDateTime taskStart = timeBlock.getStartTime();
-			if (!taskStart.isBefore(dayStart) && taskStart.isBefore(dayEnd)) {
-				tasksForDay.add(timeBlock);
-			}
-		}
 
-		return tasksForDay;
+		return weekSchedule.getTimeBlocksStartingBetween(dayStart, dayEnd);
 	}
 
 	public void setStartTime(LocalDateTime newStartTime) {
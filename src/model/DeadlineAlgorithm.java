@@ -0,0 +1,190 @@
+package model;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Earliest deadline first. Before anything is placed we check if the whole
+ * set of tasks can still make their deadlines: run them earliest deadline
+ * first through the free time of the week (night, fixed blocks and
+ * blackouts taken out) as if they could be split up. That is the best any
+ * order can do, so a task that is late there will be late no matter what
+ * and we stop right away and report it (see getLateTasks, the list is kept
+ * in the schedule's context).
+ *
+ * Tasks are placed as late as possible before their deadline, like
+ * Scheduler.scheduleTaskWithinWeek does. Since real blocks can't be split
+ * the check can pass and a task still not fit before its deadline, then it
+ * goes in the first slot after and is reported as late too.
+ */
+public class DeadlineAlgorithm implements Algorithm {
+    private static final Comparator<Task> BY_DEADLINE =
+            Comparator.comparing(Task::getDeadline, Comparator.nullsLast(Comparator.naturalOrder()));
+
+    // the tasks found late in the last call, kept in the schedule's context
+    private static final class LateTasks {
+        final List<Task> tasks;
+
+        LateTasks(List<Task> tasks) {
+            this.tasks = tasks;
+        }
+    }
+
+    @Override
+    public TimeBlock applyAlgorithm(Schedule schedule, Task task, SchedulingContext context) {
+        List<Task> placed = movableTasks(schedule);
+        List<Task> lateBefore = findLateTasks(schedule, placed);
+        placed.add(task);
+        List<Task> late = findLateTasks(schedule, placed);
+        if (late.size() > lateBefore.size()) {
+            // only blame the tasks this one pushes over their deadline
+            late.removeAll(lateBefore);
+            context.setState(LateTasks.class, new LateTasks(late));
+            System.out.println("Can't add task " + task.getDescription() + " without missing deadlines: " + describe(late));
+            return null;
+        }
+        List<Task> lateTasks = new ArrayList<>();
+        context.setState(LateTasks.class, new LateTasks(lateTasks));
+        TimeBlock timeBlock = placeLatest(schedule, task, context, lateTasks);
+        if (timeBlock == null) {
+            System.out.println("No room to add task " + task.getDescription() + " before the end of the schedule.");
+        }
+        return timeBlock;
+    }
+
+    /*
+     * Place every movable task again, latest deadline first and each as late
+     * as it can go. If the tasks can't all make their deadlines nothing is
+     * changed. Returns the tasks that are (or would be) late.
+     */
+    public List<Task> reschedule(Schedule schedule) {
+        Schedule.Savepoint savepoint = schedule.begin();
+        List<Task> tasks = new ArrayList<>();
+        for (TimeBlock timeBlock : schedule.removeMovableTimeBlocks()) {
+            tasks.add(timeBlock.getTask());
+        }
+        List<Task> lateTasks = findLateTasks(schedule, tasks);
+        schedule.getContext().setState(LateTasks.class, new LateTasks(lateTasks));
+        if (!lateTasks.isEmpty()) {
+            System.out.println("Can't reschedule without missing deadlines: " + describe(lateTasks));
+            schedule.rollback(savepoint);
+            return lateTasks;
+        }
+        // going backwards from the latest deadline leaves the early time for
+        // the tasks that need it
+        PriorityQueue<Task> latestFirst = new PriorityQueue<>(BY_DEADLINE.reversed());
+        latestFirst.addAll(tasks);
+        while (!latestFirst.isEmpty()) {
+            Task task = latestFirst.poll();
+            if (placeLatest(schedule, task, schedule.getContext(), lateTasks) == null) {
+                System.out.println("Could not reschedule and fit all blocks within calendar week");
+                schedule.rollback(savepoint);
+                return lateTasks;
+            }
+        }
+        schedule.commit(savepoint);
+        return lateTasks;
+    }
+
+    /*
+     * The tasks that can't make their deadline in the free time of the
+     * schedule even in the best order, in deadline order. The tasks are run
+     * earliest deadline first from a heap, every task takes the next free
+     * minutes after the one before it. O(n log n) plus one walk over the
+     * availability profile.
+     */
+    public List<Task> findLateTasks(Schedule schedule, Collection<Task> tasks) {
+        PriorityQueue<Task> byDeadline = new PriorityQueue<>(BY_DEADLINE);
+        byDeadline.addAll(tasks);
+        AvailabilityProfile availability = schedule.getAvailability();
+        int endMinute = schedule.getEndMinute();
+        int window = 0;
+        // where the work so far is done, minutes since the schedule epoch
+        int time = schedule.getStartMinute();
+        List<Task> late = new ArrayList<>();
+        while (!byDeadline.isEmpty()) {
+            Task task = byDeadline.poll();
+            int remaining = taskMinutes(task);
+            while (remaining > 0 && time < endMinute) {
+                while (window < availability.size() && availability.getEnd(window) <= time) {
+                    window++;
+                }
+                if (window < availability.size() && availability.getStart(window) <= time) {
+                    // inside a forbidden window, skip to its end
+                    time = availability.getEnd(window);
+                    continue;
+                }
+                int freeUntil = window < availability.size()
+                        ? Math.min(availability.getStart(window), endMinute) : endMinute;
+                int work = Math.min(remaining, freeUntil - time);
+                time += work;
+                remaining -= work;
+            }
+            if (remaining > 0 || time > deadlineMinute(schedule, task)) {
+                late.add(task);
+            }
+        }
+        return late;
+    }
+
+    // Latest start that ends before the deadline, or the first one after it
+    // if nothing fits before (the task will be late, it is added to 'late').
+    private TimeBlock placeLatest(Schedule schedule, Task task, SchedulingContext context, List<Task> late) {
+        int length = taskMinutes(task);
+        OccupancyBitmap occupancy = schedule.getOccupancy();
+        long[] fits = occupancy.validStarts(length, true, context.longScratch(occupancy.wordCount()));
+        int latestStart = Math.min(deadlineMinute(schedule, task), schedule.getEndMinute()) - length;
+        int start = occupancy.previousValidStart(fits, latestStart);
+        if (start < 0) {
+            start = occupancy.nextValidStart(fits, latestStart);
+            if (start < 0) {
+                return null;
+            }
+            late.add(task);
+            System.out.println("Task " + task.getDescription() + " will be late.");
+        }
+        TimeBlock timeBlock = new TimeBlock(task, schedule.fromMinutes(start), schedule.fromMinutes(start + length));
+        schedule.addTimeBlock(timeBlock);
+        return timeBlock;
+    }
+
+    // The late tasks of the last call on this schedule.
+    public List<Task> getLateTasks(Schedule schedule) {
+        LateTasks late = schedule.getContext().getState(LateTasks.class);
+        return late == null ? List.of() : List.copyOf(late.tasks);
+    }
+
+    private static List<Task> movableTasks(Schedule schedule) {
+        List<Task> tasks = new ArrayList<>();
+        for (TimeBlock timeBlock : schedule.getTimeBlocks()) {
+            Task task = timeBlock.getTask();
+            if (task != null && !task.isFixed()) {
+                tasks.add(task);
+            }
+        }
+        return tasks;
+    }
+
+    private static int deadlineMinute(Schedule schedule, Task task) {
+        LocalDateTime deadline = task.getDeadline();
+        if (deadline == null || deadline.isAfter(schedule.getEndTime())) {
+            return schedule.getEndMinute();
+        }
+        return schedule.toMinutes(deadline);
+    }
+
+    private static int taskMinutes(Task task) {
+        return (int) (task.getEstimatedTime() * 60);
+    }
+
+    private static String describe(List<Task> tasks) {
+        List<String> names = new ArrayList<>();
+        for (Task task : tasks) {
+            names.add(task.getDescription());
+        }
+        return String.join(", ", names);
+    }
+}
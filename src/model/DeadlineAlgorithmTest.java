@@ -0,0 +1,43 @@
+package model;
+
+/**
+ * Test cases for the earliest deadline first algorithm.
+ */
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class DeadlineAlgorithmTest {
+    // Tasks go as late as possible before their deadline. A task that can't
+    // make its deadline is not added and is reported as late.
+    @Test
+    public void testDeadlineAlgorithm() {
+        Schedule schedule = new Schedule(LocalDateTime.of(2024, 10, 1, 0, 0), LocalDateTime.of(2024, 10, 2, 0, 0),
+                new SequentialAlgorithm());
+        Task task1 = new Task("Task 1", 2.0);
+        Task task2 = new Task("Task 2", 1.5);
+        Task task3 = new Task("Task 3", 3.0);
+        DeadlineAlgorithm deadlineAlgorithm = new DeadlineAlgorithm();
+        schedule.getContext().setNightCheck(false);
+        schedule.setAlgorithm(deadlineAlgorithm);
+        task1.setDeadline(LocalDateTime.of(2024, 10, 1, 12, 0));
+        TimeBlock t1 = schedule.addTask(task1);
+        assertEquals(LocalDateTime.of(2024, 10, 1, 10, 0), t1.getStartTime(), "As late as possible");
+
+        // 3 hours due at 2 AM can't fit
+        task3.setDeadline(LocalDateTime.of(2024, 10, 1, 2, 0));
+        assertEquals(null, schedule.addTask(task3));
+        assertEquals(List.of(task3), deadlineAlgorithm.getLateTasks(schedule));
+
+        // 1.5 hours due at noon still fits before task 1
+        task2.setDeadline(LocalDateTime.of(2024, 10, 1, 12, 0));
+        TimeBlock t2 = schedule.addTask(task2);
+        assertEquals(LocalDateTime.of(2024, 10, 1, 8, 30), t2.getStartTime());
+        assertEquals(0, deadlineAlgorithm.reschedule(schedule).size());
+        assertEquals(true, schedule.isValid());
+    }
+}
@@ -0,0 +1,200 @@
+package model;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+
+/**
+ * Spreads the work evenly over the days. The days sit in a min-heap by how
+ * many minutes of blocks they already have, and a task goes on the least
+ * loaded day that still has a gap for it before its deadline (and stays
+ * under that day's cap, if there is one). Inside the day it takes the
+ * earliest gap. Uniform only picks a random slot, so it can still pile up
+ * work on one day; this one can't.
+ *
+ * The days and the heap are kept in the schedule's context between calls
+ * and the load of the day that gets the task is updated in place, so a
+ * task is O(log d) for the heap plus a look at that day of the occupancy
+ * bitmap. They are only counted again from the blocks, O(n + d), when
+ * something else changed the schedule since (its modCount).
+ */
+public class LoadLevelingAlgorithm implements Algorithm {
+    // most minutes of blocks a day can have, days that aren't in here have no cap
+    private final Map<DayOfWeek, Integer> capMinutes;
+
+    public LoadLevelingAlgorithm() {
+        this(Map.of());
+    }
+
+    // the same cap on every day
+    public LoadLevelingAlgorithm(int capMinutesPerDay) {
+        this(everyDay(capMinutesPerDay));
+    }
+
+    public LoadLevelingAlgorithm(Map<DayOfWeek, Integer> capMinutes) {
+        this.capMinutes = capMinutes.isEmpty() ? Map.of() : new EnumMap<>(capMinutes);
+    }
+
+    private static Map<DayOfWeek, Integer> everyDay(int capMinutesPerDay) {
+        Map<DayOfWeek, Integer> caps = new EnumMap<>(DayOfWeek.class);
+        for (DayOfWeek day : DayOfWeek.values()) {
+            caps.put(day, capMinutesPerDay);
+        }
+        return caps;
+    }
+
+    // One day of the schedule, in minutes since the schedule epoch.
+    private static final class Day {
+        final LocalDate date;
+        final int start;
+        final int end;
+        int load;
+
+        Day(LocalDate date, int start, int end) {
+            this.date = date;
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    // The days of a schedule by load, kept in its context. Good as long as
+    // the schedule still has this modCount and these bounds.
+    private static final class DayLoads {
+        final PriorityQueue<Day> heap = new PriorityQueue<>(BY_LOAD);
+        long modCount;
+        int startMinute;
+        int endMinute;
+    }
+
+    // least loaded first, the earlier day on a tie
+    private static final Comparator<Day> BY_LOAD =
+            Comparator.comparingInt((Day day) -> day.load).thenComparingInt(day -> day.start);
+
+    @Override
+    public TimeBlock applyAlgorithm(Schedule schedule, Task task, SchedulingContext context) {
+        DayLoads loads = loadsOf(schedule, context);
+        TimeBlock timeBlock = place(schedule, task, loads.heap);
+        // our own add is already counted
+        loads.modCount = schedule.getModCount();
+        if (timeBlock == null) {
+            System.out.println("No day has room to add task " + task.getDescription() + " before its deadline.");
+        }
+        return timeBlock;
+    }
+
+    // The remembered loads, or new ones from the schedule if it changed.
+    private DayLoads loadsOf(Schedule schedule, SchedulingContext context) {
+        DayLoads loads = context.getState(DayLoads.class);
+        if (loads != null && loads.modCount == schedule.getModCount()
+                && loads.startMinute == schedule.getStartMinute() && loads.endMinute == schedule.getEndMinute()) {
+            return loads;
+        }
+        loads = new DayLoads();
+        loads.heap.addAll(days(schedule));
+        loads.modCount = schedule.getModCount();
+        loads.startMinute = schedule.getStartMinute();
+        loads.endMinute = schedule.getEndMinute();
+        context.setState(DayLoads.class, loads);
+        return loads;
+    }
+
+    /*
+     * Take the movable blocks out and level them over the week again in one
+     * go, with one heap for all of them. The tasks with the least choice go
+     * first: earliest deadline, then the longest. If they don't all fit
+     * anymore nothing changes.
+     */
+    public void rebalance(Schedule schedule) {
+        Schedule.Savepoint savepoint = schedule.begin();
+        List<Task> tasks = new ArrayList<>();
+        for (TimeBlock timeBlock : schedule.removeMovableTimeBlocks()) {
+            tasks.add(timeBlock.getTask());
+        }
+        tasks.sort(Comparator
+                .comparing(Task::getDeadline, Comparator.nullsLast(Comparator.naturalOrder()))
+                .thenComparing(Comparator.comparingDouble(Task::getEstimatedTime).reversed()));
+        DayLoads loads = loadsOf(schedule, schedule.getContext());
+        for (Task task : tasks) {
+            if (place(schedule, task, loads.heap) == null) {
+                System.out.println("Could not reschedule and fit all blocks within calendar week");
+                schedule.rollback(savepoint);
+                return;
+            }
+            loads.modCount = schedule.getModCount();
+        }
+        schedule.commit(savepoint);
+    }
+
+    /*
+     * Try the days from the least loaded up. The days that can't take the
+     * task are put back on the heap afterwards, the one that takes it goes
+     * back with its new load.
+     */
+    private TimeBlock place(Schedule schedule, Task task, PriorityQueue<Day> days) {
+        int length = (int) (task.getEstimatedTime() * 60);
+        int deadline = task.getDeadline() == null ? Integer.MAX_VALUE : schedule.toMinutes(task.getDeadline());
+        OccupancyBitmap occupancy = schedule.getOccupancy();
+        List<Day> skipped = new ArrayList<>();
+        TimeBlock timeBlock = null;
+        while (timeBlock == null && !days.isEmpty()) {
+            Day day = days.poll();
+            int limit = Math.min(day.end, deadline);
+            if (day.load + length <= capOf(day) && day.start + length <= limit) {
+                int start = occupancy.nearestFit(day.start, length, day.start, limit, true);
+                if (start >= 0) {
+                    timeBlock = new TimeBlock(task, schedule.fromMinutes(start), schedule.fromMinutes(start + length));
+                    schedule.addTimeBlock(timeBlock);
+                    day.load += length;
+                }
+            }
+            skipped.add(day);
+        }
+        days.addAll(skipped);
+        return timeBlock;
+    }
+
+    private int capOf(Day day) {
+        return capMinutes.getOrDefault(day.date.getDayOfWeek(), Integer.MAX_VALUE);
+    }
+
+    // The days of the schedule (cut to its start and end) with the minutes
+    // of blocks they already have. Blackouts aren't work, they don't count.
+    // A block only adds to the days it is on.
+    private static List<Day> days(Schedule schedule) {
+        List<Day> days = new ArrayList<>();
+        LocalDate first = schedule.getStartTime().toLocalDate();
+        for (LocalDate date = first; date.atStartOfDay().isBefore(schedule.getEndTime()); date = date.plusDays(1)) {
+            int start = Math.max(schedule.toMinutes(date.atStartOfDay()), schedule.getStartMinute());
+            int end = Math.min(schedule.toMinutes(date.plusDays(1).atStartOfDay()), schedule.getEndMinute());
+            days.add(new Day(date, start, end));
+        }
+        for (TimeBlock timeBlock : schedule.getTimeBlocks()) {
+            if (timeBlock.getTask() == null) {
+                continue;
+            }
+            int blockStart = schedule.toMinutes(timeBlock.getStartTime());
+            int blockEnd = schedule.toMinutes(timeBlock.getEndTime());
+            long index = Math.max(0, ChronoUnit.DAYS.between(first, timeBlock.getStartTime().toLocalDate()));
+            for (int i = (int) Math.min(index, days.size()); i < days.size() && days.get(i).start < blockEnd; i++) {
+                Day day = days.get(i);
+                day.load += Math.max(0, Math.min(blockEnd, day.end) - Math.max(blockStart, day.start));
+            }
+        }
+        return days;
+    }
+
+    // Minutes of blocks on each day of the schedule, in date order.
+    public Map<LocalDate, Integer> getDayLoads(Schedule schedule) {
+        Map<LocalDate, Integer> loads = new TreeMap<>();
+        for (Day day : days(schedule)) {
+            loads.put(day.date, day.load);
+        }
+        return loads;
+    }
+}
@@ -0,0 +1,66 @@
+package model;
+
+/**
+ * Test cases for the load leveling algorithm.
+ */
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class LoadLevelingAlgorithmTest {
+    // Each task goes on the least loaded day: the fixed 3 hours on the first
+    // day are matched on the other two before the first day gets more.
+    @Test
+    public void testLoadLevelingAlgorithm() {
+        Schedule week = new Schedule(LocalDateTime.of(2024, 10, 1, 0, 0), LocalDateTime.of(2024, 10, 4, 0, 0),
+                new LoadLevelingAlgorithm());
+        Task fixed = new Task("Fixed", 1, 3.0, null, true);
+        week.addTimeBlockManually(new TimeBlock(fixed,
+                LocalDateTime.of(2024, 10, 1, 9, 0), LocalDateTime.of(2024, 10, 1, 12, 0)));
+        for (int i = 0; i < 7; i++) {
+            week.addTask(new Task("Task " + i, 1.0));
+        }
+        LoadLevelingAlgorithm leveling = new LoadLevelingAlgorithm();
+        assertEquals(List.of(240, 180, 180), List.copyOf(leveling.getDayLoads(week).values()));
+
+        // a deadline keeps it off the emptier days after it
+        Task due = new Task("Due", 5, 1.0, LocalDateTime.of(2024, 10, 2, 12, 0), false);
+        assertEquals(LocalDate.of(2024, 10, 2), week.addTask(due).getStartTime().toLocalDate());
+
+        // with a cap of 5 hours a day a 2 hour task only fits on the last day
+        LoadLevelingAlgorithm capped = new LoadLevelingAlgorithm(300);
+        assertEquals(LocalDate.of(2024, 10, 3),
+                capped.applyAlgorithm(week, new Task("Two", 2.0)).getStartTime().toLocalDate());
+        assertEquals(null, capped.applyAlgorithm(week, new Task("Three", 3.0)), "No day has 3 hours left under the cap");
+
+        // rebalancing spreads the 10 hours of movable work out again next to the fixed 3
+        capped.rebalance(week);
+        assertEquals(List.of(240, 240, 300), List.copyOf(capped.getDayLoads(week).values()));
+        assertEquals(true, week.isValid());
+    }
+
+    // The loads are kept between calls, a block put in or taken out some
+    // other way in between still counts for the next task.
+    @Test
+    public void testLoadsFollowOutsideChanges() {
+        Schedule week = new Schedule(LocalDateTime.of(2024, 10, 1, 0, 0), LocalDateTime.of(2024, 10, 3, 0, 0),
+                new LoadLevelingAlgorithm());
+        assertEquals(LocalDate.of(2024, 10, 1), week.addTask(new Task("First", 1.0)).getStartTime().toLocalDate());
+
+        // the second day gets two hours by hand, so the first is emptier again
+        TimeBlock manual = new TimeBlock(new Task("Manual", 2.0),
+                LocalDateTime.of(2024, 10, 2, 9, 0), LocalDateTime.of(2024, 10, 2, 11, 0));
+        week.addTimeBlockManually(manual);
+        assertEquals(LocalDate.of(2024, 10, 1), week.addTask(new Task("Second", 1.0)).getStartTime().toLocalDate());
+
+        // and when they are taken out again the second day is the emptier one
+        week.removeTimeBlock(manual);
+        assertEquals(LocalDate.of(2024, 10, 2), week.addTask(new Task("Third", 1.0)).getStartTime().toLocalDate());
+        assertEquals(List.of(120, 60), List.copyOf(new LoadLevelingAlgorithm().getDayLoads(week).values()));
+    }
+}
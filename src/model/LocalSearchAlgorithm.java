@@ -0,0 +1,310 @@
+package model;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Improves an existing plan with simulated annealing. New tasks are just
+ * put in the first place they fit, reschedule() does the real work: it
+ * keeps moving movable blocks around until the time budget runs out and
+ * then applies the best plan it has seen.
+ *
+ * A move either shifts a block a little, relocates it somewhere random or
+ * swaps two blocks. The cost of a plan is
+ *   LATE_WEIGHT  * minutes late (over all blocks)
+ * + START_WEIGHT * minutes after the schedule start / priority
+ * + LOAD_WEIGHT  * sum over the days of (minutes of work that day)^2
+ * and every term only depends on one block or one day, so a move is scored
+ * by the difference of the blocks and days it touches. Worse moves are
+ * sometimes taken too (less and less as the time runs out) so the search
+ * can get out of local minima.
+ *
+ * Everything runs on minutes and a copy of the occupancy bitmap, the
+ * schedule itself is only touched at the end.
+ */
+public class LocalSearchAlgorithm implements Algorithm {
+    private final Duration timeBudget;
+
+    private static final double LATE_WEIGHT = 100;
+    private static final double START_WEIGHT = 1;
+    private static final double LOAD_WEIGHT = 0.01;
+    // moves land on quarter hours
+    private static final int STEP = 15;
+
+    public LocalSearchAlgorithm() {
+        this(Duration.ofSeconds(1));
+    }
+
+    public LocalSearchAlgorithm(Duration timeBudget) {
+        this.timeBudget = timeBudget;
+    }
+
+    @Override
+    public TimeBlock applyAlgorithm(Schedule schedule, Task task, SchedulingContext context) {
+        int length = (int) (task.getEstimatedTime() * 60);
+        int start = schedule.getOccupancy().firstFit(schedule.getStartMinute(), length, true);
+        if (start < 0) {
+            System.out.println("No room to add task " + task.getDescription() + ".");
+            return null;
+        }
+        TimeBlock timeBlock = new TimeBlock(task, schedule.fromMinutes(start), schedule.fromMinutes(start + length));
+        schedule.addTimeBlock(timeBlock);
+        return timeBlock;
+    }
+
+    // The plan the search works on. Block i is blocks.get(i).
+    private static class Plan {
+        List<TimeBlock> blocks = new ArrayList<>();
+        int[] start;
+        int[] length;
+        int[] deadline;
+        double[] startWeight;
+        long[] dayLoad;
+        int dayOffset; // minutes from midnight to the schedule epoch
+        int scheduleStart;
+        OccupancyBitmap occupancy;
+
+        // index into dayLoad, blocks outside the schedule count for the first/last day
+        int day(int minute) {
+            int day = Math.floorDiv(minute + dayOffset, 24 * 60) - Math.floorDiv(scheduleStart + dayOffset, 24 * 60);
+            return Math.min(Math.max(day, 0), dayLoad.length - 1);
+        }
+
+        double blockCost(int i, int at) {
+            double cost = START_WEIGHT * startWeight[i] * (at - scheduleStart);
+            int late = at + length[i] - deadline[i];
+            return late > 0 ? cost + LATE_WEIGHT * late : cost;
+        }
+
+        double loadCost(int day, long change) {
+            long load = dayLoad[day] + change;
+            return LOAD_WEIGHT * load * load;
+        }
+
+        double cost() {
+            double cost = 0;
+            for (int i = 0; i < start.length; i++) {
+                cost += blockCost(i, start[i]);
+            }
+            for (int day = 0; day < dayLoad.length; day++) {
+                cost += loadCost(day, 0);
+            }
+            return cost;
+        }
+    }
+
+    /*
+     * Optimize the movable blocks until the time budget is used up and keep
+     * the best plan found. Returns (and prints) how many moves per second
+     * were tried.
+     */
+    public double reschedule(Schedule schedule) {
+        Plan plan = buildPlan(schedule);
+        int n = plan.start.length;
+        if (n == 0) {
+            return 0;
+        }
+        Random random = schedule.getContext().getRandom();
+
+        double startCost = plan.cost();
+        double cost = startCost;
+        double bestCost = cost;
+        int[] bestStart = plan.start.clone();
+        // start hot enough that an hour of extra delay on an average block is
+        // often accepted, end close to only taking improvements
+        double startTemperature = Math.max(1, 60 * START_WEIGHT);
+        double endTemperature = 0.01;
+        long budget = timeBudget.toNanos();
+        long began = System.nanoTime();
+        long iterations = 0;
+        double temperature = startTemperature;
+        while (true) {
+            if ((iterations & 255) == 0) {
+                long elapsed = System.nanoTime() - began;
+                if (elapsed >= budget || Thread.currentThread().isInterrupted()) {
+                    break;
+                }
+                double progress = (double) elapsed / budget;
+                temperature = startTemperature * Math.pow(endTemperature / startTemperature, progress);
+            }
+            iterations++;
+            double delta;
+            int move = random.nextInt(3);
+            if (move == 2 && n > 1) {
+                delta = trySwap(plan, random.nextInt(n), random.nextInt(n), temperature, random);
+            } else {
+                int i = random.nextInt(n);
+                int to;
+                if (move == 0) {
+                    // shift by up to two hours either way
+                    to = plan.start[i] + (random.nextInt(17) - 8) * STEP;
+                } else {
+                    int slots = (plan.occupancy.getBase() + plan.occupancy.getSize() - plan.length[i] - plan.scheduleStart) / STEP;
+                    if (slots <= 0) {continue;}
+                    to = plan.scheduleStart + random.nextInt(slots + 1) * STEP;
+                }
+                delta = tryMove(plan, i, to, temperature, random);
+            }
+            if (!Double.isNaN(delta)) {
+                cost += delta;
+                if (cost < bestCost - 1e-9) {
+                    bestCost = cost;
+                    System.arraycopy(plan.start, 0, bestStart, 0, n);
+                }
+            }
+        }
+        double seconds = (System.nanoTime() - began) / 1e9;
+        double iterationsPerSecond = iterations / Math.max(seconds, 1e-9);
+        System.out.println("Local search: " + iterations + " moves, " + Math.round(iterationsPerSecond)
+                + " moves/s, cost " + Math.round(startCost) + " -> " + Math.round(bestCost));
+        apply(schedule, plan, bestStart);
+        return iterationsPerSecond;
+    }
+
+    // Move block i to 'to' if it fits and the annealing accepts it. Returns
+    // the change in cost, or NaN if nothing changed.
+    private double tryMove(Plan plan, int i, int to, double temperature, Random random) {
+        int from = plan.start[i];
+        int length = plan.length[i];
+        if (to == from) {
+            return Double.NaN;
+        }
+        plan.occupancy.clearUsed(from, from + length);
+        if (!plan.occupancy.isFree(to, to + length, true)) {
+            plan.occupancy.markUsed(from, from + length);
+            return Double.NaN;
+        }
+        double delta = plan.blockCost(i, to) - plan.blockCost(i, from)
+                + loadDelta(plan, plan.day(from), plan.day(to), length);
+        if (!accept(delta, temperature, random)) {
+            plan.occupancy.markUsed(from, from + length);
+            return Double.NaN;
+        }
+        plan.occupancy.markUsed(to, to + length);
+        plan.dayLoad[plan.day(from)] -= length;
+        plan.dayLoad[plan.day(to)] += length;
+        plan.start[i] = to;
+        return delta;
+    }
+
+    // Block i goes where j starts and j where i starts.
+    private double trySwap(Plan plan, int i, int j, double temperature, Random random) {
+        int startI = plan.start[i];
+        int startJ = plan.start[j];
+        int lengthI = plan.length[i];
+        int lengthJ = plan.length[j];
+        if (i == j || startI == startJ) {
+            return Double.NaN;
+        }
+        plan.occupancy.clearUsed(startI, startI + lengthI);
+        plan.occupancy.clearUsed(startJ, startJ + lengthJ);
+        boolean fits = plan.occupancy.isFree(startJ, startJ + lengthI, true)
+                && plan.occupancy.isFree(startI, startI + lengthJ, true)
+                // they must not run into each other either
+                && (startJ + lengthI <= startI || startI + lengthJ <= startJ);
+        double delta = Double.NaN;
+        if (fits) {
+            delta = plan.blockCost(i, startJ) - plan.blockCost(i, startI)
+                    + plan.blockCost(j, startI) - plan.blockCost(j, startJ)
+                    + swapLoadDelta(plan, plan.day(startI), plan.day(startJ), lengthI, lengthJ);
+            if (!accept(delta, temperature, random)) {
+                delta = Double.NaN;
+            }
+        }
+        if (Double.isNaN(delta)) {
+            plan.occupancy.markUsed(startI, startI + lengthI);
+            plan.occupancy.markUsed(startJ, startJ + lengthJ);
+            return delta;
+        }
+        plan.occupancy.markUsed(startJ, startJ + lengthI);
+        plan.occupancy.markUsed(startI, startI + lengthJ);
+        int dayI = plan.day(startI);
+        int dayJ = plan.day(startJ);
+        plan.dayLoad[dayI] += lengthJ - lengthI;
+        plan.dayLoad[dayJ] += lengthI - lengthJ;
+        plan.start[i] = startJ;
+        plan.start[j] = startI;
+        return delta;
+    }
+
+    private static double loadDelta(Plan plan, int fromDay, int toDay, int length) {
+        if (fromDay == toDay) {
+            return 0;
+        }
+        return plan.loadCost(fromDay, -length) - plan.loadCost(fromDay, 0)
+                + plan.loadCost(toDay, length) - plan.loadCost(toDay, 0);
+    }
+
+    // i (lengthI) leaves dayI for dayJ, j (lengthJ) goes the other way
+    private static double swapLoadDelta(Plan plan, int dayI, int dayJ, int lengthI, int lengthJ) {
+        if (dayI == dayJ) {
+            return 0;
+        }
+        return plan.loadCost(dayI, lengthJ - lengthI) - plan.loadCost(dayI, 0)
+                + plan.loadCost(dayJ, lengthI - lengthJ) - plan.loadCost(dayJ, 0);
+    }
+
+    private static boolean accept(double delta, double temperature, Random random) {
+        return delta <= 0 || random.nextDouble() < Math.exp(-delta / temperature);
+    }
+
+    private static Plan buildPlan(Schedule schedule) {
+        Plan plan = new Plan();
+        for (TimeBlock timeBlock : schedule.getTimeBlocks()) {
+            if (timeBlock.getTask() != null && !timeBlock.getTask().isFixed()) {
+                plan.blocks.add(timeBlock);
+            }
+        }
+        int n = plan.blocks.size();
+        plan.start = new int[n];
+        plan.length = new int[n];
+        plan.deadline = new int[n];
+        plan.startWeight = new double[n];
+        plan.scheduleStart = schedule.getStartMinute();
+        LocalDateTime epoch = schedule.fromMinutes(0);
+        plan.dayOffset = epoch.getHour() * 60 + epoch.getMinute();
+        plan.dayLoad = new long[Math.floorDiv(schedule.getEndMinute() + plan.dayOffset, 24 * 60)
+                - Math.floorDiv(plan.scheduleStart + plan.dayOffset, 24 * 60) + 1];
+        plan.occupancy = schedule.getOccupancy().copy();
+        for (int i = 0; i < n; i++) {
+            TimeBlock timeBlock = plan.blocks.get(i);
+            Task task = timeBlock.getTask();
+            plan.start[i] = schedule.toMinutes(timeBlock.getStartTime());
+            plan.length[i] = schedule.toMinutesCeil(timeBlock.getEndTime()) - plan.start[i];
+            plan.deadline[i] = task.getDeadline() == null ? Integer.MAX_VALUE / 2 : schedule.toMinutes(task.getDeadline());
+            plan.startWeight[i] = 1.0 / (task.getPriority() == null ? 5 : Math.max(1, task.getPriority()));
+            plan.dayLoad[plan.day(plan.start[i])] += plan.length[i];
+        }
+        return plan;
+    }
+
+    // Move the blocks that changed to their place in the best plan.
+    private static void apply(Schedule schedule, Plan plan, int[] bestStart) {
+        List<TimeBlock> changed = new ArrayList<>();
+        for (int i = 0; i < bestStart.length; i++) {
+            if (bestStart[i] != schedule.toMinutes(plan.blocks.get(i).getStartTime())) {
+                changed.add(plan.blocks.get(i));
+            }
+        }
+        // take them all out first so they can't get in each other's way
+        for (TimeBlock timeBlock : changed) {
+            schedule.removeTimeBlock(timeBlock);
+        }
+        for (int i = 0; i < bestStart.length; i++) {
+            TimeBlock timeBlock = plan.blocks.get(i);
+            if (!schedule.containsTimeBlock(timeBlock)) {
+                Duration duration = Duration.between(timeBlock.getStartTime(), timeBlock.getEndTime());
+                LocalDateTime start = schedule.fromMinutes(bestStart[i]);
+                timeBlock.setStartTime(start);
+                timeBlock.setEndTime(start.plus(duration));
+                schedule.addTimeBlock(timeBlock);
+            }
+        }
+    }
+
+    public Duration getTimeBudget() {
+        return timeBudget;
+    }
+}
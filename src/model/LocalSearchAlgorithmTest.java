@@ -0,0 +1,39 @@
+package model;
+
+/**
+ * Test cases for the local search optimizer.
+ */
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.Test;
+
+public class LocalSearchAlgorithmTest {
+    // The optimizer should keep the schedule valid and pull a late task
+    // back before its deadline.
+    @Test
+    public void testLocalSearchAlgorithm() {
+        Schedule schedule = new Schedule(LocalDateTime.of(2024, 10, 1, 0, 0), LocalDateTime.of(2024, 10, 2, 0, 0),
+                new SequentialAlgorithm());
+        Task task1 = new Task("Task 1", 2.0);
+        Task task2 = new Task("Task 2", 1.5);
+        Task task3 = new Task("Task 3", 3.0);
+        LocalSearchAlgorithm localSearch = new LocalSearchAlgorithm(java.time.Duration.ofMillis(200));
+        schedule.getContext().setNightCheck(false);
+        schedule.setAlgorithm(localSearch);
+        task1.setDeadline(LocalDateTime.of(2024, 10, 1, 12, 0));
+        schedule.addTimeBlockManually(new TimeBlock(task1,
+                LocalDateTime.of(2024, 10, 1, 18, 0), LocalDateTime.of(2024, 10, 1, 20, 0)));
+        schedule.addTask(task2);
+        schedule.addTask(task3);
+
+        double movesPerSecond = localSearch.reschedule(schedule);
+        assertEquals(true, schedule.isValid());
+        assertEquals(3, schedule.getTimeBlocks().size());
+        assertEquals(false, schedule.getTimeBlockByTaskId(task1.getId()).getEndTime().isAfter(task1.getDeadline()),
+                "Task 1 should not be late anymore");
+        assertEquals(true, movesPerSecond > 0);
+    }
+}
@@ -0,0 +1,445 @@
+package model;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * One bit per minute of the schedule. A week is 10,080 minutes which is only
+ * 158 longs, so we can answer "where do k free minutes start" by looking at
+ * 64 minutes at a time instead of comparing TimeBlocks.
+ *
+ * There are two layers. 'used' has a bit for every minute covered by a
+ * block and is kept up to date by the Schedule on every change. 'blocked'
+ * holds minutes nothing may be placed in (for example the night). Queries
+ * can choose to respect the blocked layer or not.
+ *
+ * All minutes in the public methods are minutes since the schedule epoch
+ * (see Schedule.toMinutes), the same as the rest of the primitive API.
+ *
+ * For best fit the free runs of the used layer are also kept in order of
+ * length. That index is only built the first time bestFit is asked for
+ * and from then on updated by markUsed/clearUsed, O(log n) per run they
+ * touch. Copies and reset() start without it, so an optimizer moving
+ * blocks around on a copy doesn't pay for it.
+ */
+public class OccupancyBitmap {
+
+    private int base; // minute of bit 0
+    private int size; // number of minutes covered
+    private long[] used = new long[0];
+    private long[] blocked = new long[0];
+    // free runs of 'used', start -> end and by (length, start), or null
+    private TreeMap<Integer, Integer> gaps;
+    private TreeSet<Long> gapsByLength;
+
+    public int getBase() {return base;}
+    public int getSize() {return size;}
+    // longs in a bitset from validStarts
+    public int wordCount() {return used.length;}
+
+    // Cover [base, base + size). Every bit is cleared.
+    void reset(int base, int size) {
+        this.base = base;
+        this.size = Math.max(size, 0);
+        int words = (this.size + 63) >>> 6;
+        used = new long[words];
+        blocked = new long[words];
+        gaps = null;
+        gapsByLength = null;
+    }
+
+    // Independent copy, e.g. for an optimizer to try moves on.
+    OccupancyBitmap copy() {
+        OccupancyBitmap copy = new OccupancyBitmap();
+        copy.base = base;
+        copy.size = size;
+        copy.used = used.clone();
+        copy.blocked = blocked.clone();
+        return copy;
+    }
+
+    void markUsed(int from, int to) {
+        setRange(used, from, to, true);
+        if (gaps != null) {
+            gapsTaken(Math.max(from, base), Math.min(to, base + size));
+        }
+    }
+
+    void clearUsed(int from, int to) {
+        setRange(used, from, to, false);
+        if (gaps != null) {
+            gapsFreed(Math.max(from, base), Math.min(to, base + size));
+        }
+    }
+    void markBlocked(int from, int to) {setRange(blocked, from, to, true);}
+    void clearBlocked() {Arrays.fill(blocked, 0);}
+
+    // True if no minute in [from, to) is used (or blocked when asked).
+    public boolean isFree(int from, int to, boolean respectBlocked) {
+        if (from < base || to > base + size) {
+            return false;
+        }
+        int start = from - base;
+        int end = to - base;
+        while (start < end) {
+            int word = start >>> 6;
+            int bits = Math.min(64 - (start & 63), end - start);
+            long mask = mask(start & 63, bits);
+            if ((taken(word, respectBlocked) & mask) != 0) {
+                return false;
+            }
+            start += bits;
+        }
+        return true;
+    }
+
+    /*
+     * First minute >= from where 'length' free minutes in a row start, or -1.
+     * Skips over whole runs of free and taken minutes with
+     * numberOfTrailingZeros instead of looking at every minute.
+     */
+    public int firstFit(int from, int length, boolean respectBlocked) {
+        int position = Math.max(from - base, 0);
+        length = Math.max(length, 1);
+        while (position + length <= size) {
+            int freeStart = nextBit(position, respectBlocked, false);
+            if (freeStart < 0 || freeStart + length > size) {
+                return -1;
+            }
+            int freeEnd = nextBit(freeStart, respectBlocked, true);
+            if (freeEnd < 0) {
+                freeEnd = size;
+            }
+            if (freeEnd - freeStart >= length) {
+                return base + freeStart;
+            }
+            position = freeEnd;
+        }
+        return -1;
+    }
+
+    /*
+     * Start of the shortest free run of the used layer that is at least
+     * 'length' long (the earliest of those), or -1. One ceiling lookup in
+     * the runs ordered by length.
+     */
+    public int bestFit(int length) {
+        if (gaps == null) {
+            buildGaps();
+        }
+        Long gap = gapsByLength.ceiling((long) Math.max(length, 1) << 32);
+        return gap == null ? -1 : base + (int) (gap & 0xFFFFFFFFL);
+    }
+
+    private void buildGaps() {
+        gaps = new TreeMap<>();
+        gapsByLength = new TreeSet<>();
+        int[] runs = freeRuns(false);
+        for (int i = 0; i < runs.length; i += 2) {
+            addGap(runs[i], runs[i + 1]);
+        }
+    }
+
+    // [from, to) is used now: cut it out of the runs it overlaps
+    private void gapsTaken(int from, int to) {
+        if (from >= to) {
+            return;
+        }
+        Map.Entry<Integer, Integer> before = gaps.lowerEntry(from);
+        if (before != null && before.getValue() > from) {
+            int start = before.getKey();
+            int end = before.getValue();
+            removeGap(start, end);
+            addGap(start, from);
+            if (end > to) {
+                addGap(to, end);
+                return;
+            }
+        }
+        for (Map.Entry<Integer, Integer> gap = gaps.ceilingEntry(from); gap != null && gap.getKey() < to;
+                gap = gaps.ceilingEntry(from)) {
+            int end = gap.getValue();
+            removeGap(gap.getKey(), end);
+            if (end > to) {
+                addGap(to, end);
+            }
+        }
+    }
+
+    // [from, to) is free now: one run with the runs it touches
+    private void gapsFreed(int from, int to) {
+        if (from >= to) {
+            return;
+        }
+        int start = from;
+        int end = to;
+        Map.Entry<Integer, Integer> before = gaps.floorEntry(from);
+        if (before != null && before.getValue() >= from) {
+            start = before.getKey();
+            end = Math.max(end, before.getValue());
+            removeGap(before.getKey(), before.getValue());
+        }
+        for (Map.Entry<Integer, Integer> gap = gaps.ceilingEntry(from); gap != null && gap.getKey() <= to;
+                gap = gaps.ceilingEntry(from)) {
+            end = Math.max(end, gap.getValue());
+            removeGap(gap.getKey(), gap.getValue());
+        }
+        addGap(start, end);
+    }
+
+    private void addGap(int start, int end) {
+        if (start < end) {
+            gaps.put(start, end);
+            gapsByLength.add(gapKey(start, end));
+        }
+    }
+
+    private void removeGap(int start, int end) {
+        gaps.remove(start);
+        gapsByLength.remove(gapKey(start, end));
+    }
+
+    // by length, then by start (relative to the base, so never negative)
+    private long gapKey(int start, int end) {
+        return ((long) (end - start) << 32) | (start - base);
+    }
+
+    /*
+     * Last start in [from, to - length] where 'length' free minutes in a row
+     * start, or -1. The mirror of firstFit: walks the runs backward from
+     * 'to' with numberOfLeadingZeros and stops at the first one long enough,
+     * nothing is allocated.
+     */
+    public int lastFit(int from, int to, int length, boolean respectBlocked) {
+        int lowest = Math.max(from - base, 0);
+        int position = Math.min(to - base, size) - 1;
+        length = Math.max(length, 1);
+        while (position - lowest + 1 >= length) {
+            int freeLast = previousBit(position, respectBlocked, false);
+            if (freeLast < 0 || freeLast - lowest + 1 < length) {
+                return -1;
+            }
+            int takenBefore = previousBit(freeLast, respectBlocked, true);
+            int freeStart = Math.max(takenBefore + 1, lowest);
+            if (freeLast + 1 - freeStart >= length) {
+                return base + freeLast + 1 - length;
+            }
+            if (takenBefore < 0) {
+                return -1;
+            }
+            position = takenBefore;
+        }
+        return -1;
+    }
+
+    /*
+     * Start in [from, to - length] closest to 'around' where 'length' free
+     * minutes in a row start, or -1. Only looks at the runs inside the
+     * window, so it costs as much as the window is big.
+     */
+    public int nearestFit(int around, int length, int from, int to, boolean respectBlocked) {
+        int start = Math.max(from - base, 0);
+        int end = Math.min(to - base, size);
+        length = Math.max(length, 1);
+        int target = around - base;
+        int best = -1;
+        while (start + length <= end) {
+            int freeStart = nextBit(start, respectBlocked, false);
+            if (freeStart < 0 || freeStart + length > end) {
+                break;
+            }
+            int freeEnd = nextBit(freeStart, respectBlocked, true);
+            if (freeEnd < 0 || freeEnd > end) {
+                freeEnd = end;
+            }
+            if (freeEnd - freeStart >= length) {
+                int candidate = Math.max(freeStart, Math.min(target, freeEnd - length));
+                if (best < 0 || Math.abs(candidate - target) < Math.abs(best - target)) {
+                    best = candidate;
+                }
+                if (candidate >= target) {
+                    // runs further on are only further away
+                    break;
+                }
+            }
+            start = freeEnd;
+        }
+        return best < 0 ? -1 : base + best;
+    }
+
+    // Every run of free minutes as {start0, end0, start1, end1, ...}, in
+    // order. Jumps from run to run like firstFit.
+    public int[] freeRuns(boolean respectBlocked) {
+        int[] runs = new int[16];
+        int count = 0;
+        int position = 0;
+        while (position < size) {
+            int freeStart = nextBit(position, respectBlocked, false);
+            if (freeStart < 0) {
+                break;
+            }
+            int freeEnd = nextBit(freeStart, respectBlocked, true);
+            if (freeEnd < 0) {
+                freeEnd = size;
+            }
+            if (count + 2 > runs.length) {
+                runs = Arrays.copyOf(runs, runs.length * 2);
+            }
+            runs[count++] = base + freeStart;
+            runs[count++] = base + freeEnd;
+            position = freeEnd;
+        }
+        return Arrays.copyOf(runs, count);
+    }
+
+    /*
+     * Bitset (relative to the base) with a bit for every minute where
+     * 'length' free minutes in a row start. Built by shift-and: after each
+     * round bit m says whether minutes m..m+len-1 are all free and len doubles,
+     * so it takes log(length) passes over the words.
+     */
+    public long[] validStarts(int length, boolean respectBlocked) {
+        return validStarts(length, respectBlocked, new long[used.length]);
+    }
+
+    // Same, written into 'valid' (wordCount() long) instead of a new array.
+    public long[] validStarts(int length, boolean respectBlocked, long[] valid) {
+        length = Math.max(length, 1);
+        for (int i = 0; i < valid.length; i++) {
+            valid[i] = ~taken(i, respectBlocked);
+        }
+        clearTail(valid);
+        int covered = 1;
+        while (covered < length) {
+            int step = Math.min(covered, length - covered);
+            andShifted(valid, step);
+            covered += step;
+        }
+        return valid;
+    }
+
+    // Next set bit at or after minute 'from' in a bitset from validStarts, or -1.
+    public int nextValidStart(long[] valid, int from) {
+        int position = Math.max(from - base, 0);
+        int word = position >>> 6;
+        if (word >= valid.length) {
+            return -1;
+        }
+        long bits = valid[word] & (-1L << (position & 63));
+        while (true) {
+            if (bits != 0) {
+                return base + (word << 6) + Long.numberOfTrailingZeros(bits);
+            }
+            if (++word >= valid.length) {
+                return -1;
+            }
+            bits = valid[word];
+        }
+    }
+
+    // Last set bit at or before minute 'from' in a bitset from validStarts, or -1.
+    public int previousValidStart(long[] valid, int from) {
+        int position = Math.min(from - base, (valid.length << 6) - 1);
+        if (position < 0) {
+            return -1;
+        }
+        int word = position >>> 6;
+        long bits = valid[word] & (-1L >>> (63 - (position & 63)));
+        while (true) {
+            if (bits != 0) {
+                return base + (word << 6) + 63 - Long.numberOfLeadingZeros(bits);
+            }
+            if (--word < 0) {
+                return -1;
+            }
+            bits = valid[word];
+        }
+    }
+
+    /* Bit helpers */
+    private long taken(int word, boolean respectBlocked) {
+        return respectBlocked ? used[word] | blocked[word] : used[word];
+    }
+
+    // next position >= from whose taken bit equals 'value', or -1
+    private int nextBit(int from, boolean respectBlocked, boolean value) {
+        int word = from >>> 6;
+        if (word >= used.length) {
+            return -1;
+        }
+        long bits = taken(word, respectBlocked);
+        if (!value) {bits = ~bits;}
+        bits &= -1L << (from & 63);
+        while (true) {
+            if (bits != 0) {
+                int position = (word << 6) + Long.numberOfTrailingZeros(bits);
+                return position < size ? position : -1;
+            }
+            if (++word >= used.length) {
+                return -1;
+            }
+            bits = value ? taken(word, respectBlocked) : ~taken(word, respectBlocked);
+        }
+    }
+
+    // last position <= from whose taken bit equals 'value', or -1
+    private int previousBit(int from, boolean respectBlocked, boolean value) {
+        if (from < 0) {
+            return -1;
+        }
+        int word = from >>> 6;
+        long bits = taken(word, respectBlocked);
+        if (!value) {bits = ~bits;}
+        bits &= -1L >>> (63 - (from & 63));
+        while (true) {
+            if (bits != 0) {
+                return (word << 6) + 63 - Long.numberOfLeadingZeros(bits);
+            }
+            if (--word < 0) {
+                return -1;
+            }
+            bits = value ? taken(word, respectBlocked) : ~taken(word, respectBlocked);
+        }
+    }
+
+    // valid[m] &= valid[m + step] for every m (bits past the end count as 0)
+    private static void andShifted(long[] valid, int step) {
+        int wordShift = step >>> 6;
+        int bitShift = step & 63;
+        for (int i = 0; i < valid.length; i++) {
+            int source = i + wordShift;
+            long low = source < valid.length ? valid[source] : 0;
+            long high = source + 1 < valid.length ? valid[source + 1] : 0;
+            long shifted = bitShift == 0 ? low : (low >>> bitShift) | (high << (64 - bitShift));
+            valid[i] &= shifted;
+        }
+    }
+
+    private void clearTail(long[] words) {
+        if ((size & 63) != 0 && words.length > 0) {
+            words[words.length - 1] &= mask(0, size & 63);
+        }
+    }
+
+    private void setRange(long[] words, int from, int to, boolean value) {
+        int start = Math.max(from - base, 0);
+        int end = Math.min(to - base, size);
+        while (start < end) {
+            int word = start >>> 6;
+            int bits = Math.min(64 - (start & 63), end - start);
+            long mask = mask(start & 63, bits);
+            if (value) {
+                words[word] |= mask;
+            } else {
+                words[word] &= ~mask;
+            }
+            start += bits;
+        }
+    }
+
+    private static long mask(int offset, int bits) {
+        return bits == 64 ? -1L : ((1L << bits) - 1) << offset;
+    }
+}
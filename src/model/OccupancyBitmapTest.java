@@ -0,0 +1,95 @@
+package model;
+
+/**
+ * Test cases for the occupancy bitmap, looked at through a small schedule.
+ */
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class OccupancyBitmapTest {
+    // The occupancy bitmap should skip both the blocks and the night.
+    @Test
+    public void testOccupancyFirstFit() {
+        Schedule schedule = new Schedule(LocalDateTime.of(2024, 10, 1, 0, 0), LocalDateTime.of(2024, 10, 2, 0, 0),
+                new SequentialAlgorithm());
+        Task task1 = new Task("Task 1", 2.0);
+        schedule.addTimeBlockManually(new TimeBlock(task1,
+                LocalDateTime.of(2024, 10, 1, 5, 0), LocalDateTime.of(2024, 10, 1, 9, 0)));
+        OccupancyBitmap occupancy = schedule.getOccupancy();
+        assertEquals(0, occupancy.firstFit(0, 60, false), "Midnight is free if we ignore the night");
+
+        schedule.getContext().setNightCheck(false);
+        assertEquals(0, schedule.getOccupancy().firstFit(0, 60, true), "Night check is off");
+
+        schedule.getContext().setNightCheck(true);
+        schedule.getContext().setNightEnd(LocalTime.of(5, 0));
+        schedule.getContext().setNightStart(LocalTime.of(22, 0));
+        schedule.compileAvailability();
+        assertEquals(9 * 60, occupancy.firstFit(0, 60, true), "Night until 5 AM and a block until 9 AM");
+        assertEquals(-1, occupancy.firstFit(0, 14 * 60, true), "Only 13 hours left between 9 AM and 10 PM");
+
+        long[] valid = occupancy.validStarts(13 * 60, true);
+        assertEquals(9 * 60, occupancy.nextValidStart(valid, 0), "13 hours fit exactly from 9 AM");
+        assertEquals(-1, occupancy.nextValidStart(valid, 9 * 60 + 1), "Nothing later fits 13 hours");
+    }
+
+    // Walking the runs backward gives the same start as the last valid
+    // start of the shift-and bitset, also across word boundaries.
+    @Test
+    public void testLastFitMatchesValidStarts() {
+        Random random = new Random(7);
+        OccupancyBitmap occupancy = new OccupancyBitmap();
+        occupancy.reset(100, 1000);
+        for (int i = 0; i < 40; i++) {
+            int from = 100 + random.nextInt(1000);
+            occupancy.markUsed(from, from + 1 + random.nextInt(30));
+        }
+        for (int length : new int[] {1, 5, 17, 64, 90}) {
+            long[] valid = occupancy.validStarts(length, false);
+            for (int to = 100; to <= 1100; to += 37) {
+                int expected = occupancy.previousValidStart(valid, to - length);
+                for (int from : new int[] {100, 400}) {
+                    assertEquals(expected >= from ? expected : -1, occupancy.lastFit(from, to, length, false),
+                            "Length " + length + " in [" + from + ", " + to + ")");
+                }
+            }
+        }
+    }
+
+    // The runs kept by length follow every mark and clear: best fit is the
+    // same as looking through all the free runs for the shortest one.
+    @Test
+    public void testBestFitFollowsChanges() {
+        Random random = new Random(11);
+        OccupancyBitmap occupancy = new OccupancyBitmap();
+        occupancy.reset(50, 2000);
+        occupancy.bestFit(1);
+        for (int step = 0; step < 500; step++) {
+            int from = 40 + random.nextInt(2000);
+            int to = from + 1 + random.nextInt(60);
+            if (random.nextInt(3) == 0) {
+                occupancy.clearUsed(from, to);
+            } else {
+                occupancy.markUsed(from, to);
+            }
+            int length = 1 + random.nextInt(40);
+            int[] runs = occupancy.freeRuns(false);
+            int expected = -1;
+            int expectedLength = Integer.MAX_VALUE;
+            for (int i = 0; i < runs.length; i += 2) {
+                int runLength = runs[i + 1] - runs[i];
+                if (runLength >= length && runLength < expectedLength) {
+                    expected = runs[i];
+                    expectedLength = runLength;
+                }
+            }
+            assertEquals(expected, occupancy.bestFit(length), "Step " + step + ", length " + length);
+        }
+    }
+}
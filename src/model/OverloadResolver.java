@@ -0,0 +1,228 @@
+package model;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * For a week that has more work than time. Instead of giving up on the
+ * whole reschedule, decide which movable tasks stay: a 0/1 knapsack over
+ * the free minutes of the week (night and fixed blocks taken out) that
+ * keeps the most value, where a task is worth its minutes divided by its
+ * priority (like the objectives, priority 1 counts the most). A task due
+ * before the end of the week would be late anywhere else, so those are
+ * chosen first over the whole free time and the others only get what they
+ * leave. The tasks that stay are packed best fit decreasing, the others
+ * come back as the deferred list, most important first, to go in a later
+ * week.
+ *
+ * The knapsack only looks at the total free time, not at how it is cut
+ * up, so a kept task can still find no gap. It is deferred too, and
+ * deferred tasks that do fit in what is left are put back in.
+ */
+public final class OverloadResolver {
+    // how far deferToNextWeek looks for a week with room, about a quarter
+    private static final int DEFER_WEEKS = 13;
+
+    private OverloadResolver() {}
+
+    /*
+     * Take out every movable block, keep the best subset and place it.
+     * Returns the deferred tasks (empty if everything fit).
+     */
+    public static List<Task> resolve(Schedule schedule) {
+        Schedule.Savepoint savepoint = schedule.begin();
+        List<Task> tasks = new ArrayList<>();
+        for (TimeBlock timeBlock : schedule.removeMovableTimeBlocks()) {
+            tasks.add(timeBlock.getTask());
+        }
+        int[] runs = schedule.getOccupancy().freeRuns(true);
+        int capacity = 0;
+        int longestRun = 0;
+        for (int i = 0; i < runs.length; i += 2) {
+            capacity += runs[i + 1] - runs[i];
+            longestRun = Math.max(longestRun, runs[i + 1] - runs[i]);
+        }
+
+        // a task longer than every gap can't stay whatever we pick
+        List<Task> due = new ArrayList<>();
+        List<Task> notDue = new ArrayList<>();
+        List<Task> deferred = new ArrayList<>();
+        for (Task task : tasks) {
+            if (taskMinutes(task) > longestRun) {
+                deferred.add(task);
+            } else if (PackingAlgorithm.isDueIn(schedule, task)) {
+                due.add(task);
+            } else {
+                notDue.add(task);
+            }
+        }
+        List<Task> kept = new ArrayList<>();
+        capacity -= keep(due, capacity, kept, deferred);
+        keep(notDue, capacity, kept, deferred);
+        PackingAlgorithm packing = new PackingAlgorithm();
+        deferred.addAll(packing.pack(schedule, kept).getUnplaced());
+        // whatever still fits in the gaps that are left
+        deferred = new ArrayList<>(packing.pack(schedule, deferred).getUnplaced());
+        schedule.commit(savepoint);
+
+        deferred.sort(Comparator.comparingInt(OverloadResolver::priority)
+                .thenComparing(Task::getDeadline, Comparator.nullsLast(Comparator.naturalOrder())));
+        if (!deferred.isEmpty()) {
+            System.out.println("Deferred " + deferred.size() + " tasks that don't fit in the week.");
+        }
+        return deferred;
+    }
+
+    // Knapsack over 'tasks' with 'capacity' minutes, adds them to 'kept'
+    // or 'deferred'. Returns the minutes kept.
+    private static int keep(List<Task> tasks, int capacity, List<Task> kept, List<Task> deferred) {
+        int[] minutes = new int[tasks.size()];
+        long[] values = new long[tasks.size()];
+        for (int i = 0; i < minutes.length; i++) {
+            Task task = tasks.get(i);
+            minutes[i] = taskMinutes(task);
+            values[i] = 60L * minutes[i] / priority(task);
+        }
+        boolean[] keep = choose(minutes, values, capacity);
+        int keptMinutes = 0;
+        for (int i = 0; i < keep.length; i++) {
+            (keep[i] ? kept : deferred).add(tasks.get(i));
+            keptMinutes += keep[i] ? minutes[i] : 0;
+        }
+        return keptMinutes;
+    }
+
+    /*
+     * Add the deferred tasks to the week after 'week' with that week's
+     * algorithm, or to the first week after it that has room (up to
+     * DEFER_WEEKS ahead). Weeks are made when needed. A task that doesn't
+     * fit in a week that was just made, empty, won't fit in any later one
+     * either, so it stops there. The tasks that found no week are put back
+     * in 'week' so nothing gets lost, on top of other blocks if they have
+     * to (see putBack). Returns those, the caller has to tell the user
+     * about them.
+     */
+    public static List<Task> deferToNextWeek(Calendar calendar, CalendarWeek week, List<Task> deferred) {
+        List<Task> left = new ArrayList<>();
+        for (Task task : deferred) {
+            boolean added = false;
+            for (int ahead = 1; ahead <= DEFER_WEEKS && !added; ahead++) {
+                LocalDateTime weekStart = CalendarWeek.weekStartOf(week.getStartTime().plusWeeks(ahead));
+                boolean made = calendar.getWeek(weekStart) == null;
+                added = calendar.getOrCreateWeek(weekStart).getSchedule().addTask(task) != null;
+                if (made && !added) {
+                    break;
+                }
+            }
+            if (!added) {
+                putBack(week.getSchedule(), task);
+                left.add(task);
+            }
+        }
+        return left;
+    }
+
+    /*
+     * Put a task that has no room anywhere back in 'schedule' as one block,
+     * even if it overlaps movable blocks. It goes as late as it can before
+     * its deadline (or the end of the week) in a gap between the night,
+     * fixed blocks and blackouts. If no such gap is long enough it goes at
+     * the start of the longest one, the user has to sort it out.
+     */
+    static TimeBlock putBack(Schedule schedule, Task task) {
+        AvailabilityProfile availability = schedule.getAvailability();
+        int length = taskMinutes(task);
+        int limit = schedule.getEndMinute();
+        if (task.getDeadline() != null) {
+            limit = Math.max(schedule.getStartMinute(), Math.min(limit, schedule.toMinutes(task.getDeadline())));
+        }
+        int start = -1;
+        int longestStart = schedule.getStartMinute();
+        int longest = -1;
+        // the gaps between the windows, from the last one back
+        for (int i = availability.size(); i >= 0 && start < 0; i--) {
+            int gapStart = Math.max(i > 0 ? availability.getEnd(i - 1) : 0, schedule.getStartMinute());
+            int gapEnd = Math.min(i < availability.size() ? availability.getStart(i) : Integer.MAX_VALUE,
+                    schedule.getEndMinute());
+            if (gapEnd - gapStart > longest) {
+                longest = gapEnd - gapStart;
+                longestStart = gapStart;
+            }
+            if (Math.min(gapEnd, limit) - gapStart >= length) {
+                start = Math.min(gapEnd, limit) - length;
+            }
+        }
+        if (start < 0) {
+            start = longestStart;
+        }
+        TimeBlock timeBlock = new TimeBlock(task, schedule.fromMinutes(start), schedule.fromMinutes(start + length));
+        schedule.addTimeBlockManually(timeBlock);
+        System.out.println("No week had room for " + task.getDescription() + ", put it back in this week.");
+        return timeBlock;
+    }
+
+    /*
+     * 0/1 knapsack: which items to keep for the most value with at most
+     * 'capacity' minutes. All lengths are divided by their common divisor
+     * first (tasks are mostly whole quarters or halves of an hour), which
+     * makes the table that much smaller. O(n * capacity) time, the table is
+     * one long per capacity plus one bit per item and capacity.
+     */
+    static boolean[] choose(int[] minutes, long[] values, int capacity) {
+        int n = minutes.length;
+        boolean[] keep = new boolean[n];
+        int unit = 0;
+        for (int length : minutes) {
+            unit = gcd(unit, length);
+        }
+        if (n == 0 || unit == 0 || capacity <= 0) {
+            // nothing to choose or only empty tasks, which always fit
+            for (int i = 0; i < n; i++) {
+                keep[i] = minutes[i] == 0;
+            }
+            return keep;
+        }
+        int width = capacity / unit;
+        long[] best = new long[width + 1];
+        int words = (width >>> 6) + 1;
+        long[] taken = new long[n * words];
+        for (int i = 0; i < n; i++) {
+            int weight = minutes[i] / unit;
+            for (int w = width; w >= weight; w--) {
+                long with = best[w - weight] + values[i];
+                if (with > best[w]) {
+                    best[w] = with;
+                    taken[i * words + (w >>> 6)] |= 1L << (w & 63);
+                }
+            }
+        }
+        // walk back from the full capacity
+        int w = width;
+        for (int i = n - 1; i >= 0; i--) {
+            if ((taken[i * words + (w >>> 6)] & (1L << (w & 63))) != 0) {
+                keep[i] = true;
+                w -= minutes[i] / unit;
+            }
+        }
+        return keep;
+    }
+
+    private static int gcd(int a, int b) {
+        while (b != 0) {
+            int rest = a % b;
+            a = b;
+            b = rest;
+        }
+        return a;
+    }
+
+    private static int priority(Task task) {
+        return task.getPriority() == null ? 5 : Math.max(1, task.getPriority());
+    }
+
+    private static int taskMinutes(Task task) {
+        return (int) (task.getEstimatedTime() * 60);
+    }
+}
@@ -0,0 +1,116 @@
+package model;
+
+/**
+ * Test cases for deferring work out of a full week.
+ */
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class OverloadResolverTest {
+    // With the morning blacked out only 7 hours are left for 14 hours of
+    // work: the 4 hour priority 1 task and the 3 hour priority 2 task are
+    // worth the most, the others are deferred, most important first.
+    @Test
+    public void testOverloadResolver() {
+        Schedule schedule = new Schedule(LocalDateTime.of(2024, 10, 1, 0, 0), LocalDateTime.of(2024, 10, 2, 0, 0),
+                new SequentialAlgorithm());
+        Task a = new Task("A", 1, 4.0, null, false);
+        Task b = new Task("B", 5, 4.0, null, false);
+        Task c = new Task("C", 2, 3.0, null, false);
+        Task d = new Task("D", 3, 2.0, null, false);
+        Task e = new Task("E", 5, 1.0, null, false);
+        schedule.addTasks(List.of(a, b, c, d, e));
+        assertEquals(5, schedule.getTimeBlocks().size());
+        schedule.addBlackout(LocalDateTime.of(2024, 10, 1, 5, 0), LocalDateTime.of(2024, 10, 1, 15, 0));
+
+        List<Task> deferred = OverloadResolver.resolve(schedule);
+        assertEquals(List.of(d, b, e), deferred);
+        assertEquals(2, schedule.getTimeBlocks().size());
+        assertEquals(true, schedule.getTimeBlockByTaskId(a.getId()) != null);
+        assertEquals(true, schedule.getTimeBlockByTaskId(c.getId()) != null);
+        assertEquals(true, schedule.isValid());
+    }
+
+    // A task due before the end of the week would be late anywhere else,
+    // so it stays even though it is worth less than the ones deferred.
+    @Test
+    public void testDueTasksStay() {
+        Schedule schedule = new Schedule(LocalDateTime.of(2024, 10, 1, 0, 0), LocalDateTime.of(2024, 10, 2, 0, 0),
+                new SequentialAlgorithm());
+        Task a = new Task("A", 1, 4.0, null, false);
+        Task b = new Task("B", 5, 4.0, LocalDateTime.of(2024, 10, 1, 20, 0), false);
+        Task c = new Task("C", 2, 3.0, null, false);
+        Task d = new Task("D", 3, 2.0, null, false);
+        schedule.addTasks(List.of(a, b, c, d));
+        schedule.addBlackout(LocalDateTime.of(2024, 10, 1, 5, 0), LocalDateTime.of(2024, 10, 1, 15, 0));
+
+        List<Task> deferred = OverloadResolver.resolve(schedule);
+        assertEquals(List.of(a, d), deferred);
+        TimeBlock due = schedule.getTimeBlockByTaskId(b.getId());
+        assertEquals(false, due.getEndTime().isAfter(b.getDeadline()), "Before its deadline");
+        assertEquals(true, schedule.getTimeBlockByTaskId(c.getId()) != null);
+        assertEquals(true, schedule.isValid());
+    }
+
+    // Deferred tasks go to the first later week with room. One that doesn't
+    // fit in an empty week comes back and is put back in this week instead
+    // of being dropped.
+    @Test
+    public void testDeferToLaterWeeks() {
+        LocalDateTime monday = LocalDateTime.of(2024, 10, 7, 0, 0);
+        Calendar calendar = new Calendar(monday, new DeadlineAlgorithm());
+        CalendarWeek week = calendar.getCurrentWeek();
+        calendar.getOrCreateWeek(monday.plusWeeks(1)).getSchedule().addBlackout(monday.plusWeeks(1), monday.plusWeeks(2));
+
+        Task two = new Task("Two", 2.0);
+        Task tooLong = new Task("Too long", 20.0);
+        List<Task> left = OverloadResolver.deferToNextWeek(calendar, week, List.of(two, tooLong));
+        assertEquals(List.of(tooLong), left);
+        assertEquals(null, calendar.getWeek(monday.plusWeeks(1)).getSchedule().getTimeBlockByTaskId(two.getId()),
+                "The next week is full");
+        assertEquals(true, calendar.getWeek(monday.plusWeeks(2)).getSchedule().getTimeBlockByTaskId(two.getId()) != null,
+                "The week after it has room");
+        // it stops at the first week made for it, not DEFER_WEEKS ahead
+        assertEquals(4, calendar.getWeeks().size(), "Only one empty week made for the one that fits nowhere");
+        assertEquals(true, week.getSchedule().getTimeBlockByTaskId(tooLong.getId()) != null,
+                "Put back in this week");
+    }
+
+    // A task put back goes as late as it can before its deadline, outside
+    // the night, even on top of other blocks.
+    @Test
+    public void testPutBack() {
+        Schedule schedule = new Schedule(LocalDateTime.of(2024, 10, 7, 0, 0), LocalDateTime.of(2024, 10, 14, 0, 0),
+                new SequentialAlgorithm());
+        schedule.addTask(new Task("Busy", 3, 6.0, null, false));
+        Task late = new Task("Late", 1, 2.0, LocalDateTime.of(2024, 10, 9, 12, 0), false);
+        TimeBlock timeBlock = OverloadResolver.putBack(schedule, late);
+        assertEquals(LocalDateTime.of(2024, 10, 9, 10, 0), timeBlock.getStartTime());
+        assertEquals(timeBlock, schedule.getTimeBlockByTaskId(late.getId()));
+
+        // the deadline is in the night, so it ends when the night starts
+        Task night = new Task("Night", 1, 2.0, LocalDateTime.of(2024, 10, 9, 3, 0), false);
+        assertEquals(LocalDateTime.of(2024, 10, 8, 20, 0), OverloadResolver.putBack(schedule, night).getStartTime());
+    }
+
+    // Due by the end of the week means the same here as in the packing: a
+    // deadline right at the end counts.
+    @Test
+    public void testDueAtTheEnd() {
+        Schedule schedule = new Schedule(LocalDateTime.of(2024, 10, 1, 0, 0), LocalDateTime.of(2024, 10, 2, 0, 0),
+                new SequentialAlgorithm());
+        Task a = new Task("A", 1, 4.0, null, false);
+        Task b = new Task("B", 5, 4.0, LocalDateTime.of(2024, 10, 2, 0, 0), false);
+        assertEquals(true, PackingAlgorithm.isDueIn(schedule, b));
+        schedule.addTasks(List.of(a, b));
+        schedule.addBlackout(LocalDateTime.of(2024, 10, 1, 5, 0), LocalDateTime.of(2024, 10, 1, 15, 0));
+
+        assertEquals(List.of(a), OverloadResolver.resolve(schedule));
+        assertEquals(true, schedule.getTimeBlockByTaskId(b.getId()) != null);
+    }
+}
@@ -0,0 +1,171 @@
+package model;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Best fit decreasing: the longest tasks go first, each into the smallest
+ * free gap it fits in, and what is left of that gap goes back in for the
+ * next ones. Packs a pile of tasks into a week much tighter than placing
+ * them one by one in whatever order they come. The gaps are the free runs
+ * of the occupancy bitmap with the blocked layer (night, fixed blocks,
+ * blackouts) taken out, kept in a TreeMap by length so finding the
+ * tightest one is a ceiling lookup.
+ *
+ * A task only takes a gap where it ends before its deadline, and the tasks
+ * due before the end of the schedule are packed before the others so those
+ * can't take their room. If no gap is early enough the task goes in the
+ * earliest gap it fits in and is reported as late.
+ */
+public class PackingAlgorithm implements Algorithm {
+
+    // What pack() did.
+    public static class Result {
+        private final List<TimeBlock> placed;
+        private final List<Task> unplaced;
+        private final List<Task> late;
+        private final Map<LocalDate, Integer> freeMinutesPerDay;
+
+        Result(List<TimeBlock> placed, List<Task> unplaced, List<Task> late, Map<LocalDate, Integer> freeMinutesPerDay) {
+            this.placed = placed;
+            this.unplaced = unplaced;
+            this.late = late;
+            this.freeMinutesPerDay = freeMinutesPerDay;
+        }
+
+        public List<TimeBlock> getPlaced() {return placed;}
+        public List<Task> getUnplaced() {return unplaced;}
+        // placed, but ending after their deadline
+        public List<Task> getLate() {return late;}
+        // usable minutes left on each day of the schedule, in date order
+        public Map<LocalDate, Integer> getFreeMinutesPerDay() {return freeMinutesPerDay;}
+    }
+
+    @Override
+    public TimeBlock applyAlgorithm(Schedule schedule, Task task, SchedulingContext context) {
+        Result result = pack(schedule, List.of(task));
+        if (result.getPlaced().isEmpty()) {
+            System.out.println("No room to add task " + task.getDescription() + ".");
+            return null;
+        }
+        return result.getPlaced().get(0);
+    }
+
+    /*
+     * Put as many of the tasks in as fit, the ones due in the schedule
+     * first, then longest first. Sorting is O(n log n) and a task is one
+     * TreeMap lookup as long as the tightest gap makes its deadline (more
+     * when only longer gaps start early enough), so thousands of tasks take
+     * milliseconds. The blocks go into the schedule in one batch.
+     */
+    public Result pack(Schedule schedule, Collection<Task> tasks) {
+        List<Task> ordered = new ArrayList<>(tasks);
+        ordered.sort(Comparator.comparing((Task task) -> !isDueIn(schedule, task))
+                .thenComparing(Comparator.comparingDouble(Task::getEstimatedTime).reversed()));
+
+        // gap length -> starts of the free gaps that long
+        TreeMap<Integer, TreeSet<Integer>> gaps = new TreeMap<>();
+        int[] runs = schedule.getOccupancy().freeRuns(true);
+        for (int i = 0; i < runs.length; i += 2) {
+            gaps.computeIfAbsent(runs[i + 1] - runs[i], length -> new TreeSet<>()).add(runs[i]);
+        }
+
+        List<TimeBlock> placed = new ArrayList<>();
+        List<Task> unplaced = new ArrayList<>();
+        List<Task> late = new ArrayList<>();
+        for (Task task : ordered) {
+            int length = (int) (task.getEstimatedTime() * 60);
+            int deadline = isDueIn(schedule, task) ? schedule.toMinutes(task.getDeadline()) : Integer.MAX_VALUE;
+            int[] gap = findGap(gaps, length, deadline);
+            if (gap == null) {
+                unplaced.add(task);
+                continue;
+            }
+            int gapLength = gap[0];
+            int start = gap[1];
+            TreeSet<Integer> starts = gaps.get(gapLength);
+            starts.remove(start);
+            if (starts.isEmpty()) {
+                gaps.remove(gapLength);
+            }
+            if (gapLength > length) {
+                gaps.computeIfAbsent(gapLength - length, rest -> new TreeSet<>()).add(start + length);
+            }
+            if (start + length > deadline) {
+                System.out.println("Task " + task.getDescription() + " will be late.");
+                late.add(task);
+            }
+            placed.add(new TimeBlock(task, schedule.fromMinutes(start), schedule.fromMinutes(start + length)));
+        }
+        schedule.addTimeBlocks(placed);
+        return new Result(placed, unplaced, late, freeMinutesPerDay(schedule));
+    }
+
+    /*
+     * The tightest gap the task fits in where it ends before 'deadline' (the
+     * earliest of the tightest), as {gap length, start}. If there is none,
+     * the gap it fits in that starts earliest, so it is as little late as
+     * it can be. Null if it fits nowhere.
+     */
+    private static int[] findGap(TreeMap<Integer, TreeSet<Integer>> gaps, int length, int deadline) {
+        int[] earliest = null;
+        for (Map.Entry<Integer, TreeSet<Integer>> entry : gaps.tailMap(Math.max(length, 1), true).entrySet()) {
+            int start = entry.getValue().first();
+            if (start + length <= deadline) {
+                return new int[] {entry.getKey(), start};
+            }
+            if (earliest == null || start < earliest[1]) {
+                earliest = new int[] {entry.getKey(), start};
+            }
+        }
+        return earliest;
+    }
+
+    // if the task has to be done by the end of the schedule (OverloadResolver
+    // uses the same test)
+    static boolean isDueIn(Schedule schedule, Task task) {
+        return task.getDeadline() != null && !task.getDeadline().isAfter(schedule.getEndTime());
+    }
+
+    // Take the movable blocks out and pack them again. If they don't all fit
+    // anymore nothing changes.
+    public void reschedule(Schedule schedule) {
+        Schedule.Savepoint savepoint = schedule.begin();
+        List<Task> tasks = new ArrayList<>();
+        for (TimeBlock timeBlock : schedule.removeMovableTimeBlocks()) {
+            tasks.add(timeBlock.getTask());
+        }
+        if (!pack(schedule, tasks).getUnplaced().isEmpty()) {
+            System.out.println("Could not reschedule and fit all blocks within calendar week");
+            schedule.rollback(savepoint);
+            return;
+        }
+        schedule.commit(savepoint);
+    }
+
+    // The free runs cut at midnight and added up per day.
+    private static Map<LocalDate, Integer> freeMinutesPerDay(Schedule schedule) {
+        Map<LocalDate, Integer> free = new TreeMap<>();
+        for (LocalDate day = schedule.getStartTime().toLocalDate(); day.atStartOfDay().isBefore(schedule.getEndTime());
+                day = day.plusDays(1)) {
+            free.put(day, 0);
+        }
+        int[] runs = schedule.getOccupancy().freeRuns(true);
+        for (int i = 0; i < runs.length; i += 2) {
+            int start = runs[i];
+            while (start < runs[i + 1]) {
+                LocalDate day = schedule.fromMinutes(start).toLocalDate();
+                int midnight = schedule.toMinutes(day.plusDays(1).atStartOfDay());
+                int end = Math.min(runs[i + 1], midnight);
+                free.merge(day, end - start, Integer::sum);
+                start = end;
+            }
+        }
+        return free;
+    }
+}
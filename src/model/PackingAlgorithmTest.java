@@ -0,0 +1,66 @@
+package model;
+
+/**
+ * Test cases for the packing algorithm.
+ */
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class PackingAlgorithmTest {
+    // Longest first into the tightest gap: with the night and a fixed block
+    // the day has gaps of 4 and 12 hours, 1.5 hours is left without room.
+    @Test
+    public void testPackingAlgorithm() {
+        Schedule schedule = new Schedule(LocalDateTime.of(2024, 10, 1, 0, 0), LocalDateTime.of(2024, 10, 2, 0, 0),
+                new SequentialAlgorithm());
+        Task fixed = new Task("Fixed", 1, 1.0, null, true);
+        schedule.addTimeBlockManually(new TimeBlock(fixed,
+                LocalDateTime.of(2024, 10, 1, 9, 0), LocalDateTime.of(2024, 10, 1, 10, 0)));
+        Task eleven = new Task("Eleven", 11.0);
+        Task three = new Task("Three", 3.0);
+        Task ninety = new Task("Ninety", 1.5);
+        Task hour = new Task("Hour", 1.0);
+        Task half = new Task("Half", 0.5);
+
+        PackingAlgorithm packing = new PackingAlgorithm();
+        PackingAlgorithm.Result result = packing.pack(schedule, List.of(half, ninety, eleven, hour, three));
+        assertEquals(List.of(ninety), result.getUnplaced());
+        assertEquals(LocalDateTime.of(2024, 10, 1, 10, 0), schedule.getTimeBlockByTaskId(eleven.getId()).getStartTime());
+        assertEquals(LocalDateTime.of(2024, 10, 1, 5, 0), schedule.getTimeBlockByTaskId(three.getId()).getStartTime());
+        assertEquals(LocalDateTime.of(2024, 10, 1, 8, 0), schedule.getTimeBlockByTaskId(hour.getId()).getStartTime(),
+                "Exactly fills the hour before the fixed block");
+        assertEquals(LocalDateTime.of(2024, 10, 1, 21, 0), schedule.getTimeBlockByTaskId(half.getId()).getStartTime());
+        assertEquals(30, result.getFreeMinutesPerDay().get(LocalDate.of(2024, 10, 1)));
+        assertEquals(true, schedule.isValid());
+    }
+
+    // Longest first would put the 7 hours in the 7 hour gap before noon and
+    // make the task due at 11:00 late. Tasks due in the day go first and
+    // only into gaps where they make it, the one that can't is placed as
+    // early as it can be and reported as late.
+    @Test
+    public void testPackingRespectsDeadlines() {
+        Schedule schedule = new Schedule(LocalDateTime.of(2024, 10, 1, 0, 0), LocalDateTime.of(2024, 10, 2, 0, 0),
+                new SequentialAlgorithm());
+        Task fixed = new Task("Fixed", 1, 1.0, null, true);
+        schedule.addTimeBlockManually(new TimeBlock(fixed,
+                LocalDateTime.of(2024, 10, 1, 12, 0), LocalDateTime.of(2024, 10, 1, 13, 0)));
+        Task seven = new Task("Seven", 7.0);
+        Task due = new Task("Due", 3, 2.0, LocalDateTime.of(2024, 10, 1, 11, 0), false);
+        Task overdue = new Task("Overdue", 3, 1.0, LocalDateTime.of(2024, 10, 1, 4, 0), false);
+
+        PackingAlgorithm.Result result = new PackingAlgorithm().pack(schedule, List.of(seven, due, overdue));
+        assertEquals(List.of(), result.getUnplaced());
+        assertEquals(List.of(overdue), result.getLate());
+        assertEquals(LocalDateTime.of(2024, 10, 1, 5, 0), schedule.getTimeBlockByTaskId(due.getId()).getStartTime());
+        assertEquals(LocalDateTime.of(2024, 10, 1, 7, 0), schedule.getTimeBlockByTaskId(overdue.getId()).getStartTime());
+        assertEquals(LocalDateTime.of(2024, 10, 1, 13, 0), schedule.getTimeBlockByTaskId(seven.getId()).getStartTime());
+        assertEquals(true, schedule.isValid());
+    }
+}
@@ -0,0 +1,76 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+/**
+ * Reschedules the same week several times with different seeds and keeps
+ * the plan the objective scores best. Every try gets its own copy of the
+ * schedule, and with it its own context (random numbers, scratch space),
+ * so they can run in parallel on the common ForkJoinPool with the same
+ * algorithm. A try only depends on its seed and ties go to the first try,
+ * so the same seeds always give the same result no matter how the threads
+ * are scheduled.
+ *
+ * A try that lost blocks on the way (an algorithm that found no room for a
+ * task leaves it out) would score better for having less in it, so it
+ * doesn't count. If no try kept every block the schedule stays as it was.
+ */
+public final class ParallelReschedule {
+
+    private ParallelReschedule() {}
+
+    /*
+     * Run 'tries' reschedules, each on a copy whose context is seeded from
+     * the schedule's own random numbers. 'reschedule' runs the algorithm on
+     * one copy. The blocks of 'schedule' are moved to where the best copy
+     * that still has all of them has them.
+     */
+    public static void run(Schedule schedule, int tries, Consumer<Schedule> reschedule, ScheduleObjective objective) {
+        if (tries < 1) {
+            return;
+        }
+        // set everything up on this thread, the tries only touch their own copy
+        List<Schedule> plans = new ArrayList<>(tries);
+        for (int i = 0; i < tries; i++) {
+            // the copy's context is seeded from the schedule's random numbers
+            plans.add(schedule.copy(schedule.getAlgorithm()));
+        }
+
+        double[] scores = new double[tries];
+        IntStream.range(0, tries).parallel().forEach(i -> {
+            reschedule.accept(plans.get(i));
+            scores[i] = objective.score(plans.get(i));
+        });
+
+        int blocks = schedule.getTimeBlocks().size();
+        int movable = movableCount(schedule);
+        int best = -1;
+        for (int i = 0; i < tries; i++) {
+            Schedule plan = plans.get(i);
+            if (plan.getTimeBlocks().size() != blocks || movableCount(plan) != movable) {
+                continue;
+            }
+            if (best < 0 || scores[i] < scores[best]) {
+                best = i;
+            }
+        }
+        if (best < 0) {
+            System.out.println("Could not reschedule and fit all blocks within calendar week");
+            return;
+        }
+        schedule.adopt(plans.get(best));
+    }
+
+    private static int movableCount(Schedule schedule) {
+        int count = 0;
+        for (TimeBlock timeBlock : schedule.getTimeBlocks()) {
+            if (timeBlock.getTask() == null || !timeBlock.getTask().isFixed()) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,58 @@
+package model;
+
+/**
+ * Test cases for the multi-seed reschedule.
+ */
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class ParallelRescheduleTest {
+    // Several seeds are tried in parallel, the same seeds should always give
+    // the same plan and the original schedule gets the blocks of the best one.
+    @Test
+    public void testParallelRescheduleIsDeterministic() {
+        Task task1 = new Task("Task 1", 2.0);
+        Task task2 = new Task("Task 2", 1.5);
+        Task task3 = new Task("Task 3", 3.0);
+        Task task4 = new Task("Task 4", 1.0);
+        LocalDateTime weekStart = LocalDateTime.of(2024, 10, 1, 0, 0);
+        Schedule first = new Schedule(weekStart, weekStart.plusDays(7), new UniformDistributeAlgorithm());
+        Schedule second = new Schedule(weekStart, weekStart.plusDays(7), new UniformDistributeAlgorithm());
+        List<Task> tasks = List.of(task1, task2, task3, task4);
+        first.getContext().reseed(1);
+        second.getContext().reseed(1);
+        first.addTasks(tasks);
+        second.addTasks(tasks);
+
+        ((UniformDistributeAlgorithm) first.getAlgorithm()).reschedule(first, 8, ScheduleObjective.dayBalance());
+        ((UniformDistributeAlgorithm) second.getAlgorithm()).reschedule(second, 8, ScheduleObjective.dayBalance());
+        assertEquals(4, first.getTimeBlocks().size());
+        assertEquals(true, first.isValid());
+        assertEquals(first.toString(), second.toString(), "Same seeds, same plan");
+    }
+
+    // A week too full for the random algorithm to place everything every
+    // time. A try that left tasks out scores better on day balance but
+    // doesn't count, and the blocks the schedule had are the ones it keeps.
+    @Test
+    public void testParallelRescheduleKeepsEveryTask() {
+        LocalDateTime weekStart = LocalDateTime.of(2024, 10, 7, 0, 0);
+        Schedule week = new Schedule(weekStart, weekStart.plusDays(7), new RandomAlgorithm());
+        week.getContext().reseed(3);
+        for (int i = 0; i < 60; i++) {
+            week.addTask(new Task("Task " + i, 1.5));
+        }
+        List<TimeBlock> before = week.getTimeBlocks();
+        ((RandomAlgorithm) week.getAlgorithm()).reschedule(week, 8, ScheduleObjective.dayBalance());
+        assertEquals(before.size(), week.getTimeBlocks().size(), "No task is dropped");
+        for (TimeBlock timeBlock : before) {
+            assertEquals(true, week.containsTimeBlock(timeBlock), "Same block objects");
+        }
+        assertEquals(true, week.isValid());
+    }
+}
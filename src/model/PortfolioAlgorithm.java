@@ -0,0 +1,298 @@
+package model;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiPredicate;
+
+/**
+ * Reschedules with several algorithms on copies of the schedule at the
+ * same time and keeps the plan the objective likes best (ties go to the
+ * algorithm listed first). Whatever hasn't finished when the time budget is
+ * used up is cancelled and doesn't count: the tries check for the interrupt
+ * between tasks, so a cancelled one stops after the task it is placing.
+ * Which algorithm won and how long each one took is counted in a Stats
+ * object. Adding a single task doesn't race, it goes to the algorithm that
+ * has won the most so far.
+ *
+ * Only plans that keep every movable block inside the schedule's
+ * availability (out of the night, blackouts and fixed blocks) are scored.
+ * Not every algorithm checks those and the objective doesn't punish them,
+ * so otherwise one that packs from midnight on would win on deadlines. A
+ * single task the best algorithm puts there goes to the next one instead.
+ * Sequential ignores the night altogether, so the default portfolio
+ * leaves it out.
+ *
+ * The copies get their own context seeded from the schedule's, so the
+ * same week and seed always give the same winner (unless the budget cuts
+ * an algorithm off).
+ */
+public class PortfolioAlgorithm implements Algorithm {
+    private final List<Algorithm> algorithms;
+    private final ScheduleObjective objective;
+    private final Duration timeBudget;
+    private final Stats stats;
+
+    // the races run here, daemon threads so they never keep the app open
+    private static final ExecutorService RACES = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "portfolio-race");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public PortfolioAlgorithm() {
+        this(List.of(new UniformDistributeAlgorithm(), new RandomAlgorithm(), new PriorityAlgorithm()),
+                ScheduleObjective.weightedTardiness(), Duration.ofSeconds(2));
+    }
+
+    public PortfolioAlgorithm(List<Algorithm> algorithms, ScheduleObjective objective, Duration timeBudget) {
+        if (algorithms.isEmpty()) {
+            throw new IllegalArgumentException("A portfolio needs at least one algorithm");
+        }
+        this.algorithms = List.copyOf(algorithms);
+        this.objective = objective;
+        this.timeBudget = timeBudget;
+        this.stats = new Stats(this.algorithms);
+    }
+
+    // One task is too little to race for (and copying the week for every
+    // algorithm costs more than placing it), the best one so far places it.
+    // If it puts it somewhere the week isn't available the others get a go.
+    @Override
+    public TimeBlock applyAlgorithm(Schedule schedule, Task task, SchedulingContext context) {
+        Algorithm best = stats.getBest();
+        List<Algorithm> order = new ArrayList<>(algorithms.size());
+        order.add(best);
+        for (Algorithm algorithm : algorithms) {
+            if (algorithm != best) {
+                order.add(algorithm);
+            }
+        }
+        for (Algorithm algorithm : order) {
+            TimeBlock timeBlock = algorithm.applyAlgorithm(schedule, task, context);
+            if (timeBlock == null) {
+                continue;
+            }
+            if (isAvailable(schedule, timeBlock)) {
+                return timeBlock;
+            }
+            schedule.removeTimeBlock(timeBlock);
+        }
+        System.out.println("No room to add task " + task.getDescription() + ".");
+        return null;
+    }
+
+    // Every algorithm places all the movable blocks again from scratch, the
+    // best complete plan is kept. Nothing changes if none of them fits
+    // everything in time.
+    public void reschedule(Schedule schedule) {
+        Race winner = race(schedule, schedule.getContext(), (algorithm, copy) -> {
+            for (TimeBlock timeBlock : copy.removeMovableTimeBlocks()) {
+                if (Thread.currentThread().isInterrupted()
+                        || algorithm.applyAlgorithm(copy, timeBlock.getTask()) == null) {
+                    return false;
+                }
+            }
+            return fitsAvailability(copy);
+        });
+        if (winner == null) {
+            System.out.println("Could not reschedule and fit all blocks within calendar week");
+            return;
+        }
+        winner.commit();
+    }
+
+    // True if no movable block is in the night, a blackout or on a fixed block.
+    private static boolean fitsAvailability(Schedule schedule) {
+        for (TimeBlock timeBlock : schedule.getTimeBlocks()) {
+            if ((timeBlock.getTask() == null || !timeBlock.getTask().isFixed()) && !isAvailable(schedule, timeBlock)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isAvailable(Schedule schedule, TimeBlock timeBlock) {
+        return schedule.getAvailability().isAvailable(schedule.toMinutes(timeBlock.getStartTime()),
+                schedule.toMinutesCeil(timeBlock.getEndTime()));
+    }
+
+    // One algorithm's try on its own copy of the schedule.
+    private final class Race implements Callable<Boolean> {
+        final Algorithm algorithm;
+        final Schedule schedule;
+        final Schedule copy;
+        final BiPredicate<Algorithm, Schedule> work;
+        double score;
+        long nanos;
+
+        Race(Algorithm algorithm, Schedule schedule, long seed, BiPredicate<Algorithm, Schedule> work) {
+            this.algorithm = algorithm;
+            this.schedule = schedule;
+            this.copy = schedule.copy(algorithm);
+            this.work = work;
+            copy.getContext().reseed(seed);
+        }
+
+        @Override
+        public Boolean call() {
+            long start = System.nanoTime();
+            boolean done = work.test(algorithm, copy);
+            if (done) {
+                score = objective.score(copy);
+            }
+            nanos = System.nanoTime() - start;
+            return done;
+        }
+
+        // Make the schedule look like the copy, on the blocks it already has.
+        void commit() {
+            schedule.adopt(copy);
+        }
+    }
+
+    // Run every algorithm on a copy, wait up to the budget and return the
+    // best finished one, or null. 'work' has to check for the interrupt.
+    private Race race(Schedule schedule, SchedulingContext context, BiPredicate<Algorithm, Schedule> work) {
+        // copies are made on this thread, the races only touch their own
+        List<Race> races = new ArrayList<>(algorithms.size());
+        for (Algorithm algorithm : algorithms) {
+            races.add(new Race(algorithm, schedule, context.getRandom().nextLong(), work));
+        }
+        List<Future<Boolean>> results;
+        try {
+            // cancels (interrupts) whatever is still running after the budget
+            results = RACES.invokeAll(races, timeBudget.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+
+        Race best = null;
+        for (int i = 0; i < races.size(); i++) {
+            Race race = races.get(i);
+            boolean finished = false;
+            try {
+                finished = results.get(i).get();
+            } catch (CancellationException e) {
+                stats.timedOut(race.algorithm);
+                continue;
+            } catch (ExecutionException e) {
+                System.out.println(name(race.algorithm) + " failed: " + e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+            stats.finished(race.algorithm, race.nanos);
+            if (finished && (best == null || race.score < best.score)) {
+                best = race;
+            }
+        }
+        if (best != null) {
+            stats.won(best.algorithm);
+        }
+        return best;
+    }
+
+    static String name(Algorithm algorithm) {
+        return algorithm.getClass().getSimpleName();
+    }
+
+    public List<Algorithm> getAlgorithms() {
+        return algorithms;
+    }
+
+    public Stats getStats() {
+        return stats;
+    }
+
+    /**
+     * Win rate and latency per algorithm over all races so far. Updated from
+     * the thread that runs the race, read from anywhere.
+     */
+    public static class Stats {
+        private final Map<Algorithm, long[]> counts = new LinkedHashMap<>();
+        // indexes into counts
+        private static final int RACES_RUN = 0;
+        private static final int WINS = 1;
+        private static final int TIMEOUTS = 2;
+        private static final int TOTAL_NANOS = 3;
+        private static final int MAX_NANOS = 4;
+
+        Stats(List<Algorithm> algorithms) {
+            for (Algorithm algorithm : algorithms) {
+                counts.put(algorithm, new long[5]);
+            }
+        }
+
+        synchronized void finished(Algorithm algorithm, long nanos) {
+            long[] count = counts.get(algorithm);
+            count[RACES_RUN]++;
+            count[TOTAL_NANOS] += nanos;
+            count[MAX_NANOS] = Math.max(count[MAX_NANOS], nanos);
+        }
+
+        synchronized void timedOut(Algorithm algorithm) {
+            counts.get(algorithm)[RACES_RUN]++;
+            counts.get(algorithm)[TIMEOUTS]++;
+        }
+
+        synchronized void won(Algorithm algorithm) {
+            counts.get(algorithm)[WINS]++;
+        }
+
+        // share of the races this algorithm won, 0 if it never ran
+        public synchronized double getWinRate(Algorithm algorithm) {
+            long[] count = counts.get(algorithm);
+            return count[RACES_RUN] == 0 ? 0 : (double) count[WINS] / count[RACES_RUN];
+        }
+
+        // average time of the races it finished
+        public synchronized Duration getAverageLatency(Algorithm algorithm) {
+            long[] count = counts.get(algorithm);
+            long finished = count[RACES_RUN] - count[TIMEOUTS];
+            return Duration.ofNanos(finished == 0 ? 0 : count[TOTAL_NANOS] / finished);
+        }
+
+        public synchronized Duration getMaxLatency(Algorithm algorithm) {
+            return Duration.ofNanos(counts.get(algorithm)[MAX_NANOS]);
+        }
+
+        public synchronized long getTimeouts(Algorithm algorithm) {
+            return counts.get(algorithm)[TIMEOUTS];
+        }
+
+        // The algorithm that won the most races (the first one if none ran
+        // yet), a good default for the algorithm box.
+        public synchronized Algorithm getBest() {
+            Algorithm best = null;
+            for (Algorithm algorithm : counts.keySet()) {
+                if (best == null || counts.get(algorithm)[WINS] > counts.get(best)[WINS]) {
+                    best = algorithm;
+                }
+            }
+            return best;
+        }
+
+        @Override
+        public synchronized String toString() {
+            StringBuilder text = new StringBuilder();
+            for (Algorithm algorithm : counts.keySet()) {
+                long[] count = counts.get(algorithm);
+                text.append(String.format("%s: won %d of %d (%.0f%%), avg %d ms, max %d ms, %d timed out%n",
+                        name(algorithm), count[WINS], count[RACES_RUN], 100 * getWinRate(algorithm),
+                        getAverageLatency(algorithm).toMillis(), getMaxLatency(algorithm).toMillis(),
+                        count[TIMEOUTS]));
+            }
+            return text.toString();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package model;
+
+/**
+ * Test cases for the portfolio of algorithms.
+ */
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+public class PortfolioAlgorithmTest {
+    // Sequential keeps the week order and makes the important task late,
+    // Priority puts it first. The portfolio keeps Priority's plan (on the
+    // blocks that were already there) and counts the win.
+    @Test
+    public void testPortfolioAlgorithm() {
+        Schedule schedule = new Schedule(LocalDateTime.of(2024, 10, 1, 0, 0), LocalDateTime.of(2024, 10, 2, 0, 0),
+                new SequentialAlgorithm());
+        Task task4 = new Task("Task 4", 1.0);
+        SequentialAlgorithm sequential = new SequentialAlgorithm();
+        PriorityAlgorithm priority = new PriorityAlgorithm();
+        PortfolioAlgorithm portfolio = new PortfolioAlgorithm(List.of(sequential, priority),
+                ScheduleObjective.weightedTardiness(), java.time.Duration.ofSeconds(10));
+        schedule.setAlgorithm(portfolio);
+        schedule.getContext().setNightCheck(false);
+        Task unimportant = new Task("Unimportant", 5, 2.0, null, false);
+        Task important = new Task("Important", 1, 1.0, LocalDateTime.of(2024, 10, 1, 1, 0), false);
+        TimeBlock first = new TimeBlock(unimportant, LocalDateTime.of(2024, 10, 1, 0, 0), LocalDateTime.of(2024, 10, 1, 2, 0));
+        TimeBlock second = new TimeBlock(important, LocalDateTime.of(2024, 10, 1, 2, 0), LocalDateTime.of(2024, 10, 1, 3, 0));
+        schedule.addTimeBlockManually(first);
+        schedule.addTimeBlockManually(second);
+
+        portfolio.reschedule(schedule);
+        assertEquals(LocalDateTime.of(2024, 10, 1, 0, 0), second.getStartTime(), "Important task first");
+        assertEquals(LocalDateTime.of(2024, 10, 1, 1, 0), first.getStartTime());
+        assertEquals(2, schedule.getTimeBlocks().size());
+        assertEquals(true, schedule.isValid());
+        assertEquals(1.0, portfolio.getStats().getWinRate(priority));
+        assertEquals(0.0, portfolio.getStats().getWinRate(sequential));
+        assertEquals(priority, portfolio.getStats().getBest());
+
+        TimeBlock added = schedule.addTask(task4);
+        assertEquals(true, schedule.containsTimeBlock(added));
+        assertEquals(3, schedule.getTimeBlocks().size());
+    }
+
+    // An algorithm that never finishes on its own can't win. It is
+    // interrupted when the budget is used up, stops on the task it was on
+    // and Sequential's plan is kept.
+    @Test
+    public void testPortfolioCancelsSlowAlgorithm() throws InterruptedException {
+        Schedule schedule = new Schedule(LocalDateTime.of(2024, 10, 1, 0, 0), LocalDateTime.of(2024, 10, 2, 0, 0),
+                new SequentialAlgorithm());
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch interrupted = new CountDownLatch(1);
+        SequentialAlgorithm sequential = new SequentialAlgorithm();
+        Algorithm blocking = (week, task, context) -> {
+            calls.incrementAndGet();
+            try {
+                // nobody counts this one down, only the interrupt ends it
+                new CountDownLatch(1).await();
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+                Thread.currentThread().interrupt();
+            }
+            return sequential.applyAlgorithm(week, task, context);
+        };
+        PortfolioAlgorithm portfolio = new PortfolioAlgorithm(List.of(blocking, sequential),
+                ScheduleObjective.weightedTardiness(), java.time.Duration.ofMillis(300));
+        schedule.setAlgorithm(portfolio);
+        // Sequential doesn't keep out of the night
+        schedule.getContext().setNightCheck(false);
+        for (int i = 0; i < 10; i++) {
+            schedule.addTimeBlockManually(new TimeBlock(new Task("Task " + i, 1.0),
+                    LocalDateTime.of(2024, 10, 1, 22 - i, 0), LocalDateTime.of(2024, 10, 1, 23 - i, 0)));
+        }
+
+        portfolio.reschedule(schedule);
+        assertEquals(true, interrupted.await(10, TimeUnit.SECONDS), "The blocked try was interrupted");
+        assertEquals(1, portfolio.getStats().getTimeouts(blocking));
+        assertEquals(sequential, portfolio.getStats().getBest());
+        assertEquals(10, schedule.getTimeBlocks().size());
+        assertEquals(true, schedule.isValid());
+        assertEquals(1, calls.get(), "The cancelled try doesn't go on with the next task");
+    }
+
+    // Sequential packs from midnight and would make the tight deadlines,
+    // but a plan in the night doesn't count, so Priority's plan is kept.
+    // A single add afterwards stays out of the night too.
+    @Test
+    public void testPortfolioKeepsOutOfTheNight() {
+        LocalDateTime monday = LocalDateTime.of(2024, 9, 30, 0, 0);
+        SequentialAlgorithm sequential = new SequentialAlgorithm();
+        PriorityAlgorithm priority = new PriorityAlgorithm();
+        PortfolioAlgorithm portfolio = new PortfolioAlgorithm(List.of(sequential, priority),
+                ScheduleObjective.weightedTardiness(), java.time.Duration.ofSeconds(10));
+        Schedule week = new Schedule(monday, monday.plusDays(7), new PriorityAlgorithm());
+        for (int i = 0; i < 8; i++) {
+            week.addTask(new Task("Task " + i, 3, 3.0, LocalDateTime.of(2024, 10, 1, 12, 0), false));
+        }
+        week.setAlgorithm(portfolio);
+
+        portfolio.reschedule(week);
+        assertEquals(8, week.getTimeBlocks().size());
+        assertEquals(0.0, portfolio.getStats().getWinRate(sequential));
+        assertEquals(priority, portfolio.getStats().getBest());
+        TimeBlock added = week.addTask(new Task("No deadline", 1.0));
+        for (TimeBlock timeBlock : week.getTimeBlocks()) {
+            assertEquals(false, week.checkIfIntersectingNight(timeBlock,
+                    week.getContext().getNightEnd(), week.getContext().getNightStart()), timeBlock + " is in the night");
+        }
+        assertEquals(true, week.containsTimeBlock(added));
+        assertEquals(true, week.isValid());
+    }
+}
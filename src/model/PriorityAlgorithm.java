@@ -1,66 +1,151 @@
 package model;
 import java.time.LocalDateTime;
-import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.List;
 
+/**
+ * Lays the movable tasks out one after the other from the start of the
+ * schedule, most important first (lower priority number, then earlier
+ * deadline). Fixed blocks, the night and blackouts are skipped over.
+ *
+ * For every schedule we remember the blocks in priority order (in its
+ * context, so one instance can serve every schedule). A new task
+ * is put at its rank with a binary search and only the blocks after it are
+ * moved, so adding a task costs O(log n + moved blocks) instead of sorting
+ * and placing the whole schedule again. If the schedule was changed by
+ * someone else since (see Schedule.getModCount) the order is rebuilt first.
+ */
 public class PriorityAlgorithm implements Algorithm {
-    LocalTime nightStart = LocalTime.of(22, 0);
-    LocalTime nightEnd = LocalTime.of(5, 0);
-    boolean nightCheck = true;
+    private static final Comparator<TimeBlock> BY_PRIORITY = Comparator
+            .comparing((TimeBlock t) -> t.getTask().getPriority(), Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(t -> t.getTask().getDeadline(), Comparator.nullsLast(Comparator.naturalOrder()));
+
+    // the movable blocks of a schedule in priority order, kept in its context
+    private static final class PriorityOrder {
+        final List<TimeBlock> blocks = new ArrayList<>();
+        long modCount;
+    }
+
     @Override
-    public TimeBlock applyAlgorithm(Schedule schedule, Task task) {
-        LocalDateTime nextAvailableSlot = schedule.findNextAvailableSlot(task.getEstimatedTime());
+    public TimeBlock applyAlgorithm(Schedule schedule, Task task, SchedulingContext context) {
+        PriorityOrder order = orderOf(schedule, context);
+        int length = taskMinutes(task);
+        TimeBlock newTimeBlock = new TimeBlock(task, schedule.getStartTime(), schedule.getStartTime());
+        // after every block that goes before it or is just as important
+        int rank = upperBound(order.blocks, newTimeBlock);
+        int cursor = rank == 0 ? schedule.getStartMinute() : schedule.toMinutesCeil(order.blocks.get(rank - 1).getEndTime());
+
+        OccupancyBitmap occupancy = schedule.getOccupancy();
+        int start = occupancy.firstFit(cursor, length, true);
+        boolean fitsBeforeNext = rank == order.blocks.size()
+                || (start >= 0 && start + length <= schedule.toMinutes(order.blocks.get(rank).getStartTime()));
+        if (fitsBeforeNext) {
+            // there is room in front of the next block, nothing has to move
+            if (start < 0) {
+                System.out.println("No available slot for task with priority: " + task.getPriority());
+                return null;
+            }
+            place(schedule, newTimeBlock, start, length);
+            order.blocks.add(rank, newTimeBlock);
+            order.modCount = schedule.getModCount();
+            return newTimeBlock;
+        }
 
-        if (nextAvailableSlot == null) {
+        // take the blocks after it out and lay them out again behind it
+        Schedule.Savepoint savepoint = schedule.begin();
+        List<TimeBlock> suffix = order.blocks.subList(rank, order.blocks.size());
+        for (TimeBlock timeBlock : suffix) {
+            schedule.removeTimeBlock(timeBlock);
+        }
+        List<TimeBlock> reflow = new ArrayList<>(suffix.size() + 1);
+        reflow.add(newTimeBlock);
+        reflow.addAll(suffix);
+        if (!layOut(schedule, reflow, cursor)) {
             System.out.println("No available slot for task with priority: " + task.getPriority());
+            schedule.rollback(savepoint);
+            order.modCount = schedule.getModCount();
             return null;
         }
-
-        LocalDateTime end = nextAvailableSlot.plusMinutes((long) (task.getEstimatedTime() * 60));
-        TimeBlock newTimeBlock = new TimeBlock(task, nextAvailableSlot, end);
-        schedule.getTimeBlocks().add(newTimeBlock);
-
-        reschedule(schedule);  // Reorganize the tasks based on priority after adding
+        schedule.commit(savepoint);
+        order.blocks.add(rank, newTimeBlock);
+        order.modCount = schedule.getModCount();
         return newTimeBlock;
     }
 
+    // Sort every movable block by priority and lay them all out again.
     public void reschedule(Schedule schedule) {
-        schedule.getTimeBlocks().sort(Comparator.comparing(t -> t.getTask().getPriority()));
-        assignStartTimes(schedule);
-    }
-
-    private void assignStartTimes(Schedule schedule) {
-        LocalDateTime currentTime = schedule.getStartTime();
-
-        for (TimeBlock timeBlock : schedule.getTimeBlocks()) {
-            LocalDateTime newEndTime = currentTime.plusMinutes((long) (timeBlock.getTask().getEstimatedTime() * 60));
-            timeBlock.setStartTime(currentTime);
-            timeBlock.setEndTime(newEndTime);
-            currentTime = newEndTime;
+        Schedule.Savepoint savepoint = schedule.begin();
+        List<TimeBlock> timeBlocks = schedule.removeMovableTimeBlocks();
+        timeBlocks.sort(BY_PRIORITY);
+        if (!layOut(schedule, timeBlocks, schedule.getStartMinute())) {
+            System.out.println("Could not reschedule and fit all blocks within calendar week");
+            schedule.rollback(savepoint);
+            schedule.getContext().setState(PriorityOrder.class, null);
+            return;
         }
+        schedule.commit(savepoint);
+        PriorityOrder order = new PriorityOrder();
+        order.blocks.addAll(timeBlocks);
+        order.modCount = schedule.getModCount();
+        schedule.getContext().setState(PriorityOrder.class, order);
     }
 
-    public LocalTime getNightStart() {
-        return nightStart;
+    // Place the blocks (not in the schedule) one after the other from
+    // 'cursor', each in the first free spot. False if one doesn't fit.
+    private boolean layOut(Schedule schedule, List<TimeBlock> timeBlocks, int cursor) {
+        OccupancyBitmap occupancy = schedule.getOccupancy();
+        for (TimeBlock timeBlock : timeBlocks) {
+            int length = taskMinutes(timeBlock.getTask());
+            int start = occupancy.firstFit(cursor, length, true);
+            if (start < 0) {
+                return false;
+            }
+            place(schedule, timeBlock, start, length);
+            cursor = start + length;
+        }
+        return true;
     }
 
-    public void setNightStart(LocalTime nightStart) {
-        this.nightStart = nightStart;
+    private static void place(Schedule schedule, TimeBlock timeBlock, int start, int length) {
+        LocalDateTime startTime = schedule.fromMinutes(start);
+        LocalDateTime endTime = schedule.fromMinutes(start + length);
+        if (schedule.containsTimeBlock(timeBlock)) {
+            schedule.moveTimeBlock(timeBlock, startTime, endTime);
+        } else {
+            timeBlock.setStartTime(startTime);
+            timeBlock.setEndTime(endTime);
+            schedule.addTimeBlock(timeBlock);
+        }
     }
 
-    public LocalTime getNightEnd() {
-        return nightEnd;
+    // The remembered order, or a new one from the schedule if it changed.
+    private PriorityOrder orderOf(Schedule schedule, SchedulingContext context) {
+        PriorityOrder order = context.getState(PriorityOrder.class);
+        if (order != null && order.modCount == schedule.getModCount()) {
+            return order;
+        }
+        order = new PriorityOrder();
+        for (TimeBlock timeBlock : schedule.getTimeBlocks()) {
+            if (timeBlock.getTask() != null && !timeBlock.getTask().isFixed()) {
+                order.blocks.add(timeBlock);
+            }
+        }
+        // stable, equal priorities stay in the order they are in the week
+        order.blocks.sort(BY_PRIORITY);
+        order.modCount = schedule.getModCount();
+        context.setState(PriorityOrder.class, order);
+        return order;
     }
 
-    public void setNightEnd(LocalTime nightEnd) {
-        this.nightEnd = nightEnd;
+    // index of the first block that goes after 'timeBlock'
+    private static int upperBound(List<TimeBlock> blocks, TimeBlock timeBlock) {
+        int index = Collections.binarySearch(blocks, timeBlock, (a, b) -> BY_PRIORITY.compare(a, b) <= 0 ? -1 : 1);
+        return -index - 1;
     }
 
-    public void setNightCheck(boolean nightCheck){
-        this.nightCheck = nightCheck;
-    }
-    
-    public boolean getNightCheck(){
-        return nightCheck;
+    private static int taskMinutes(Task task) {
+        return (int) (task.getEstimatedTime() * 60);
     }
 }
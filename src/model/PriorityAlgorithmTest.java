@@ -0,0 +1,44 @@
+package model;
+
+/**
+ * Test cases for the priority algorithm.
+ */
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.Test;
+
+public class PriorityAlgorithmTest {
+    // Tasks are laid out most important first. A more important task goes in
+    // front and only the blocks after it move, the fixed block stays put.
+    @Test
+    public void testPriorityAlgorithm() {
+        Schedule schedule = new Schedule(LocalDateTime.of(2024, 10, 1, 0, 0), LocalDateTime.of(2024, 10, 2, 0, 0),
+                new SequentialAlgorithm());
+        Task task1 = new Task("Task 1", 2.0);
+        Task task2 = new Task("Task 2", 1.5);
+        Task task3 = new Task("Task 3", 3.0);
+        PriorityAlgorithm priorityAlgorithm = new PriorityAlgorithm();
+        schedule.getContext().setNightCheck(false);
+        schedule.setAlgorithm(priorityAlgorithm);
+        Task fixed = new Task("Fixed", 1, 1.0, null, true);
+        schedule.addTimeBlockManually(new TimeBlock(fixed,
+                LocalDateTime.of(2024, 10, 1, 3, 0), LocalDateTime.of(2024, 10, 1, 4, 0)));
+        task1.setPriority(3);
+        task2.setPriority(2);
+        task3.setPriority(1);
+
+        TimeBlock t1 = schedule.addTask(task1);
+        assertEquals(LocalDateTime.of(2024, 10, 1, 0, 0), t1.getStartTime());
+        TimeBlock t2 = schedule.addTask(task2);
+        assertEquals(LocalDateTime.of(2024, 10, 1, 0, 0), t2.getStartTime(), "Task 2 is more important");
+        assertEquals(LocalDateTime.of(2024, 10, 1, 4, 0), t1.getStartTime(), "Task 1 moves past the fixed block");
+        TimeBlock t3 = schedule.addTask(task3);
+        assertEquals(LocalDateTime.of(2024, 10, 1, 0, 0), t3.getStartTime());
+        assertEquals(LocalDateTime.of(2024, 10, 1, 4, 0), t2.getStartTime());
+        assertEquals(LocalDateTime.of(2024, 10, 1, 5, 30), t1.getStartTime());
+        assertEquals(true, schedule.isValid());
+    }
+}
@@ -1,45 +1,62 @@
 package model;
 import java.time.LocalDateTime;
-import java.time.LocalTime;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Random;
 
 public class RandomAlgorithm implements Algorithm {
-    LocalTime nightStart = LocalTime.of(22, 0);
-    LocalTime nightEnd = LocalTime.of(5, 0);
-    boolean nightCheck = true;
-    int seed = 1;
     @Override
-    public TimeBlock applyAlgorithm(Schedule schedule, Task task) {
-        int MAX_ATTEMPTS = 1000;
+    public TimeBlock applyAlgorithm(Schedule schedule, Task task, SchedulingContext context) {
         // Can't pick a seed with this one
         // RandomGenerator random = RandomGenerator.of("Random");
-        Random random = new Random(seed);
-        seed++;
+        Random random = context.getRandom();
 
-        for (int i = 0; i < MAX_ATTEMPTS; i++) {
-            LocalDateTime randomStartTime = schedule.getStartTime().plusMinutes(random.nextInt(7 * 24 * 60));
-            LocalDateTime newEndTime = randomStartTime.plusMinutes((long) (task.getEstimatedTime() * 60));
-            TimeBlock timeBlock = new TimeBlock(task, randomStartTime, newEndTime);
+        // Every start where the task fits is equally likely. A free run of
+        // r minutes has r - taskMinutes + 1 of them, so we add those up per
+        // run, draw one number below the total and look up which run it is
+        // in. No guessing, so "no room" really means no room.
+        int taskMinutes = (int) (task.getEstimatedTime() * 60);
+        // the blocked layer holds the night and everything else that is off limits
+        OccupancyBitmap occupancy = schedule.getOccupancy();
+        int[] runs = occupancy.freeRuns(true);
+        int runCount = runs.length / 2;
+        // startsBefore[i] = valid starts in the runs before run i
+        long[] startsBefore = new long[runCount + 1];
+        for (int i = 0; i < runCount; i++) {
+            int usable = Math.max(0, runs[2 * i + 1] - runs[2 * i] - Math.max(taskMinutes, 1) + 1);
+            startsBefore[i + 1] = startsBefore[i] + usable;
+        }
+        if (startsBefore[runCount] == 0) {
+            System.out.println("No room to add task " + task.getDescription() + " randomly.");
+            return null;
+        }
 
-            if (schedule.canInsertTimeBlock(timeBlock) &&
-                !schedule.checkIfIntersectingNight(timeBlock, nightEnd, nightStart)) {
-                schedule.getTimeBlocks().add(timeBlock);
-                // No need to shuffle because it has already been done once.
-                // reschedule(schedule);  // Shuffle the tasks randomly after adding
-                return timeBlock;
+        long pick = random.nextLong(startsBefore[runCount]);
+        // last run whose startsBefore is <= pick (it can't be an empty run,
+        // those have the same startsBefore as the next one)
+        int low = 0;
+        int high = runCount - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (startsBefore[mid] <= pick) {
+                low = mid;
+            } else {
+                high = mid - 1;
             }
         }
-        System.out.println("No room to add task " + task.getDescription() + " randomly.");
-        return null;
+        int randomStart = runs[2 * low] + (int) (pick - startsBefore[low]);
+        TimeBlock timeBlock = new TimeBlock(task,
+                schedule.fromMinutes(randomStart), schedule.fromMinutes(randomStart + taskMinutes));
+        schedule.addTimeBlock(timeBlock);
+        // No need to shuffle because it has already been done once.
+        // reschedule(schedule);  // Shuffle the tasks randomly after adding
+        return timeBlock;
     }
 
     public void reschedule(Schedule schedule) {
-        List<TimeBlock> timeBlocks = schedule.getTimeBlocks();
-        Random random = new Random(seed); // for debugging
-        Collections.shuffle(timeBlocks, random);  // Randomly shuffle tasks
-        timeBlocks = List.copyOf(timeBlocks); // use a copy to keep all ref
+        List<TimeBlock> timeBlocks = new ArrayList<>(schedule.getTimeBlocks()); // use a copy to keep all ref
+        Collections.shuffle(timeBlocks, schedule.getContext().getRandom());  // Randomly shuffle tasks
         schedule.removeAll();
         for (TimeBlock timeBlock : timeBlocks) {
             Task task = timeBlock.getTask();
@@ -49,38 +66,19 @@ public class RandomAlgorithm implements Algorithm {
         // assignStartTimes(schedule);
     }
 
+    // Reschedule 'tries' times with different seeds (in parallel, on copies
+    // of the schedule) and keep the plan with the best score.
+    public void reschedule(Schedule schedule, int tries, ScheduleObjective objective) {
+        ParallelReschedule.run(schedule, tries, this::reschedule, objective);
+    }
+
     private void assignStartTimes(Schedule schedule) {
         LocalDateTime currentTime = schedule.getStartTime();
 
-        for (TimeBlock timeBlock : schedule.getTimeBlocks()) {
+        for (TimeBlock timeBlock : List.copyOf(schedule.getTimeBlocks())) {
             LocalDateTime newEndTime = currentTime.plusMinutes((long) (timeBlock.getTask().getEstimatedTime() * 60));
-            timeBlock.setStartTime(currentTime);
-            timeBlock.setEndTime(newEndTime);
+            schedule.moveTimeBlock(timeBlock, currentTime, newEndTime);
             currentTime = newEndTime;
         }
     }
-
-    public LocalTime getNightStart() {
-        return nightStart;
-    }
-
-    public void setNightStart(LocalTime nightStart) {
-        this.nightStart = nightStart;
-    }
-
-    public LocalTime getNightEnd() {
-        return nightEnd;
-    }
-
-    public void setNightEnd(LocalTime nightEnd) {
-        this.nightEnd = nightEnd;
-    }
-
-    public void setNightCheck(boolean nightCheck){
-        this.nightCheck = nightCheck;
-    }
-    
-    public boolean getNightCheck(){
-        return nightCheck;
-    }
 }
@@ -0,0 +1,66 @@
+package model;
+
+/**
+ * Test cases for the random algorithm's start pick. The picks are random so
+ * every test runs over a range of fixed seeds.
+ */
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.Test;
+
+public class RandomAlgorithmTest {
+    private static final LocalDateTime DAY = LocalDateTime.of(2024, 10, 1, 0, 0);
+
+    // A day that is taken from 'busyFrom' to 'busyTo', night check off.
+    private Schedule dayBusyBetween(LocalDateTime busyFrom, LocalDateTime busyTo, long seed) {
+        Schedule schedule = new Schedule(DAY, DAY.plusDays(1), new RandomAlgorithm());
+        schedule.getContext().setNightCheck(false);
+        schedule.getContext().reseed(seed);
+        schedule.addTimeBlockManually(new TimeBlock(new Task("Busy", 1.0), busyFrom, busyTo));
+        return schedule;
+    }
+
+    // Busy from 3 AM to 10 PM leaves runs of 3 and 2 hours. An hour long
+    // task has 121 starts in the first and 61 in the second, so the first
+    // should get about two thirds of the picks. Every pick has to fit.
+    @Test
+    public void testPickIsUniformOverStarts() {
+        int seeds = 2000;
+        int inFirstRun = 0;
+        for (long seed = 0; seed < seeds; seed++) {
+            Schedule schedule = dayBusyBetween(DAY.plusHours(3), DAY.plusHours(22), seed);
+            TimeBlock timeBlock = schedule.addTask(new Task("Hour", 1.0));
+            assertEquals(true, schedule.isValid(), "Fits with seed " + seed);
+            if (timeBlock.getEndTime().isAfter(DAY.plusHours(3))) {
+                assertEquals(false, timeBlock.getStartTime().isBefore(DAY.plusHours(22)),
+                        "In one of the runs with seed " + seed);
+            } else {
+                inFirstRun++;
+            }
+
+            Schedule again = dayBusyBetween(DAY.plusHours(3), DAY.plusHours(22), seed);
+            assertEquals(timeBlock.getStartTime(), again.addTask(new Task("Hour", 1.0)).getStartTime(),
+                    "Same seed, same start");
+        }
+        // 121 / 182 is 0.66
+        double share = (double) inFirstRun / seeds;
+        assertEquals(true, share > 0.6 && share < 0.73, "First run got " + share + " of the picks");
+    }
+
+    // When there is only one start left it is always the one picked, and a
+    // task that fits nowhere isn't added.
+    @Test
+    public void testPickOnlyStart() {
+        for (long seed = 0; seed < 50; seed++) {
+            // 0:07 to 1:37 is the only free time
+            Schedule schedule = dayBusyBetween(DAY.plusMinutes(97), DAY.plusDays(1), seed);
+            schedule.addTimeBlockManually(new TimeBlock(new Task("Early", 0.1), DAY, DAY.plusMinutes(7)));
+            assertEquals(DAY.plusMinutes(7), schedule.addTask(new Task("Ninety", 1.5)).getStartTime(),
+                    "Only start with seed " + seed);
+            assertEquals(null, schedule.addTask(new Task("Quarter", 0.25)), "No room left with seed " + seed);
+        }
+    }
+}
@@ -3,10 +3,24 @@ package model;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.function.Predicate;
 
 /**
  * The Schedule contains all the TimeBlocks with our Tasks. The Schedule can
@@ -26,17 +40,66 @@ import exceptions.NoSpaceLeftException;
 */
 public class Schedule {
 
-    private List<TimeBlock> timeBlocks;
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    /*
+     * The blocks are kept in two places, both in minutes since 'epoch' and
+     * both updated in insertBlock/deleteBlock only:
+     * - 'blocks' orders them by start minute (ties keep insertion order, see
+     *   key()). Range queries are a subMap, O(log n + k).
+     * - 'byLength' has the same entries split by length class: class c
+     *   holds the blocks of 2^(c-1) up to 2^c minutes. A block of class c
+     *   that overlaps 'from' starts at most 2^c before it, so an overlap
+     *   query looks that far back in each class and no further. One long
+     *   block (a vacation) only makes its own class look far back, and in
+     *   a class there are only a couple of blocks that start inside the
+     *   window without reaching 'from'. O(log n) per class plus k.
+     * - 'occupancy' has a bit for every minute a block covers. Everything
+     *   that looks for free time (the algorithms, the slot searches) uses it.
+     */
+    private final TreeMap<Long, TimeBlock> blocks = new TreeMap<>();
+    private final OccupancyBitmap occupancy = new OccupancyBitmap();
+    // tie breaker for blocks that start in the same minute
+    private int insertions = 0;
+    // index c is length class c, see above (32 classes cover every int)
+    @SuppressWarnings("unchecked")
+    private final TreeMap<Long, TimeBlock>[] byLength = new TreeMap[33];
+    // what getTimeBlocks() returns, made again after a change
+    private List<TimeBlock> sortedView = null;
+    // task id -> the blocks of that task (usually just one)
+    private final Map<String, List<TimeBlock>> blocksByTaskId = new HashMap<>();
+    private final LocalDateTime epoch;
+    private int startMinute;
+    private int endMinute;
+    // forbidden windows for movable blocks, also copied into the blocked layer
+    // of the occupancy. See compileAvailability.
+    private final AvailabilityProfile availability = new AvailabilityProfile();
+    private final List<LocalDateTime[]> blackouts = new ArrayList<>();
+    private boolean availabilityDirty = true;
+    // night settings the profile was compiled with
+    private boolean compiledNightCheck;
+    private LocalTime compiledNightEnd;
+    private LocalTime compiledNightStart;
+    // changes made since the oldest open savepoint, see begin()
+    private final List<Change> undoLog = new ArrayList<>();
+    private int openSavepoints = 0;
+    private boolean undoing = false;
+    // goes up on every change to the blocks, lets callers see if their own
+    // view of the schedule is still up to date
+    private long modCount = 0;
     private LocalDateTime startTime;
     private LocalDateTime endTime;
     private Algorithm algorithm;
+    // random numbers, night and scratch space for the algorithm
+    private SchedulingContext context = new SchedulingContext();
    //Algorithm selectedAlgorithm = Algorithm.RANDOM;
 
     public Schedule(LocalDateTime startTime, LocalDateTime endTime, Algorithm algorithm) {
-        this.timeBlocks = new ArrayList<>();
         this.startTime = startTime;
         this.endTime = endTime;
         this.algorithm = algorithm;
+        this.epoch = startTime.truncatedTo(ChronoUnit.MINUTES);
+        boundsChanged();
     }
     public void saveTasksToFile(String filePath) {
         Gson gson = new GsonBuilder()
@@ -44,7 +107,7 @@ public class Schedule {
                 .setPrettyPrinting()
                 .create();
         try (FileWriter writer = new FileWriter(filePath)) {
-            String json = gson.toJson(timeBlocks);
+            String json = gson.toJson(new ArrayList<>(blocks.values()));
             System.out.println("Saving JSON: " + json);  // Log JSON content
             writer.write(json);
         } catch (IOException e) {
@@ -60,10 +123,10 @@ public class Schedule {
             List<TimeBlock> loadedBlocks = gson.fromJson(reader, new TypeToken<List<TimeBlock>>() {}.getType());
 
             // Validate and filter out invalid TimeBlocks
-            timeBlocks = new ArrayList<>();
+            removeAll();
             for (TimeBlock block : loadedBlocks) {
                 if (block.getStartTime() != null && block.getEndTime() != null) {
-                    timeBlocks.add(block); // Only add if both times are valid
+                    insertBlock(block); // Only add if both times are valid
                 } else {
                     System.out.println("Invalid TimeBlock loaded: " + block);
                 }
@@ -78,38 +141,102 @@ public class Schedule {
         return algorithm.applyAlgorithm(this,t);
     }
 
+    /*
+     * Place a batch of tasks in one pass. The longest tasks go first while
+     * there is still room for them, the short ones can fill the holes that
+     * are left. Returns the blocks that were placed, tasks that didn't fit
+     * are skipped (the algorithm prints why).
+     */
+    public List<TimeBlock> addTasks(Collection<Task> tasks) {
+        List<Task> ordered = new ArrayList<>(tasks);
+        ordered.sort(Comparator.comparingDouble(Task::getEstimatedTime).reversed());
+        List<TimeBlock> placed = new ArrayList<>(ordered.size());
+        for (Task task : ordered) {
+            TimeBlock timeBlock = algorithm.applyAlgorithm(this, task);
+            if (timeBlock != null) {
+                placed.add(timeBlock);
+            }
+        }
+        return placed;
+    }
+
     /*Getters*/
-    public List<TimeBlock> getTimeBlocks() {return timeBlocks;}
+    // Read only and sorted by start time. Use addTimeBlock/removeTimeBlock/
+    // moveTimeBlock to change it.
+    public List<TimeBlock> getTimeBlocks() {
+        if (sortedView == null) {
+            sortedView = Collections.unmodifiableList(new ArrayList<>(blocks.values()));
+        }
+        return sortedView;
+    }
     public LocalDateTime getStartTime() {return startTime;}
     public LocalDateTime getEndTime() {return endTime;}
+    public long getModCount() {return modCount;}
     
     /*Utility */
     public boolean canInsertTimeBlock(TimeBlock timeBlock){
         if ( !isBound(timeBlock) ){ return false; }
 
-        for (TimeBlock other : timeBlocks) {
+        return getTimeBlocksOverlapping(timeBlock.getStartTime(), timeBlock.getEndTime()).isEmpty();
+    }
+
+    /*
+     * Primitive versions of the checks above. Times are minutes since the
+     * schedule epoch (see toMinutes). These do not allocate anything so the
+     * algorithms can call them for every position they probe. They read the
+     * occupancy bitmap, a probe looks at 64 minutes per long instead of
+     * binary searching start/end arrays of the blocks, and the bitmap is
+     * kept up to date by insertBlock/deleteBlock anyway.
+     */
+    public boolean canInsert(int startMin, int endMin) {
+        if (startMin < startMinute || endMin > endMinute) { return false; }
+        return occupancy.isFree(startMin, endMin, false);
+    }
 
-            if (timeBlock.intersectsWith(other)){ return false;}
+    // Same rules as checkIfIntersectingNight but for minutes since the epoch.
+    public boolean intersectsNight(int startMin, int endMin, LocalTime nightEnd, LocalTime nightStart) {
+        int epochOffset = epoch.getHour() * 60 + epoch.getMinute();
+        int startOfDay = startMin + epochOffset;
+        int endOfDay = endMin + epochOffset;
+        if (Math.floorDiv(startOfDay, MINUTES_PER_DAY) != Math.floorDiv(endOfDay, MINUTES_PER_DAY)) {
+            return true;
         }
-        return true;
+        return Math.floorMod(startOfDay, MINUTES_PER_DAY) < nightEnd.toSecondOfDay() / 60.0
+                || Math.floorMod(endOfDay, MINUTES_PER_DAY) > nightStart.toSecondOfDay() / 60.0;
+    }
+
+    // Minutes since the schedule epoch, rounded down.
+    public int toMinutes(LocalDateTime time) {
+        return (int) Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC) - epoch.toEpochSecond(ZoneOffset.UTC), 60);
+    }
+
+    // Minutes since the schedule epoch, rounded up.
+    public int toMinutesCeil(LocalDateTime time) {
+        int minutes = toMinutes(time);
+        return fromMinutes(minutes).isBefore(time) ? minutes + 1 : minutes;
     }
-    public boolean isValid() {
 
-        // any blocks outside the bounds of the schedule?
-        if (!timeBlocks.isEmpty()) {
-            if (timeBlocks.get(0).getStartTime().isBefore(startTime) ||
-                    timeBlocks.get(timeBlocks.size() - 1).getEndTime().isAfter(endTime)) {
+    public LocalDateTime fromMinutes(int minutes) {return epoch.plusMinutes(minutes);}
+    public int getStartMinute() {return startMinute;}
+    public int getEndMinute() {return endMinute;}
+    public boolean isValid() {
+        // the blocks are sorted by start, so one pass is enough. We remember the
+        // latest end so far because a long block can overlap more than its
+        // direct neighbour.
+        LocalDateTime latestEnd = null;
+        for (TimeBlock timeBlock : blocks.values()) {
+            // any blocks outside the bounds of the schedule?
+            if (!isBound(timeBlock)) {
                 return false;
             }
-        }
-
-        // any blocks overlapping each other?
-        for (int i = 1; i < timeBlocks.size(); i++) {
-            if (timeBlocks.get(i - 1).getEndTime().isAfter(timeBlocks.get(i).getStartTime())) {
+            // any blocks overlapping each other?
+            if (latestEnd != null && latestEnd.isAfter(timeBlock.getStartTime())) {
                 return false;
             }
+            if (latestEnd == null || timeBlock.getEndTime().isAfter(latestEnd)) {
+                latestEnd = timeBlock.getEndTime();
+            }
         }
-
         return true;
     }
 
@@ -143,132 +270,683 @@ public class Schedule {
     public boolean isBound(TimeBlock timeBlock) {
         return !timeBlock.getStartTime().isBefore(startTime) && !timeBlock.getEndTime().isAfter(endTime);
     }
+    // Earliest start in [startBound, endBound] where the whole task fits before
+    // endBound, or null. Only free time inside the schedule is considered
+    // (the blocks, not the night), found in the occupancy bitmap.
     public LocalDateTime findNextAvailableSlotWithinBounds(LocalDateTime startBound, LocalDateTime endBound, double estimatedTime) {
-        LocalDateTime candidate = startBound;
-        
-        while (!candidate.isAfter(endBound)) {
-            LocalDateTime candidateEnd = candidate.plusMinutes((long) (estimatedTime * 60));
-    
-            if (candidateEnd.isAfter(endBound)) {
-                return null; // No available slot within bounds
-            }
-            boolean conflict = false;
-            for (TimeBlock block : timeBlocks) {
-                if (candidate.isBefore(block.getEndTime()) && candidateEnd.isAfter(block.getStartTime())) {
-                    conflict = true;
-                    candidate = block.getEndTime();
-                    break;
-                }
-            }
-            if (!conflict) {return candidate;}
-            candidate = candidate.plusMinutes(15);
+        int length = (int) (estimatedTime * 60);
+        int start = occupancy.firstFit(Math.max(toMinutesCeil(startBound), startMinute), length, false);
+        if (start < 0 || start + length > Math.min(toMinutes(endBound), endMinute)) {
+            return null;
         }
-    
-        return null; // No valid slot found within bounds
+        return fromMinutes(start);
+    }
+
+    // Latest start where the whole task fits in [startBound, endBound], or null.
+    // Used to place tasks as close to their deadline as possible. Walks the
+    // free runs of the occupancy backward from endBound.
+    public LocalDateTime findLastAvailableSlotWithinBounds(LocalDateTime startBound, LocalDateTime endBound, double estimatedTime) {
+        int length = (int) (estimatedTime * 60);
+        int start = occupancy.lastFit(Math.max(toMinutesCeil(startBound), startMinute),
+                Math.min(toMinutes(endBound), endMinute), length, false);
+        return start < 0 ? null : fromMinutes(start);
     }
     
+    // Start of the smallest free gap the task fits in (the earliest of
+    // those), or null. O(log n) in the gaps kept by length.
+    public LocalDateTime findBestFitSlot(double estimatedTime) {
+        int start = occupancy.bestFit((int) (estimatedTime * 60));
+        return start < 0 ? null : fromMinutes(start);
+    }
+
     private void adjustScheduleBounds(TimeBlock timeBlock) {
         // Adjust startTime and endTime dynamically if the new timeBlock goes beyond current bounds
+        boolean changed = false;
         if (timeBlock.getStartTime().isBefore(startTime)) {
             startTime = timeBlock.getStartTime();
+            changed = true;
         }
         if (timeBlock.getEndTime().isAfter(endTime)) {
             endTime = timeBlock.getEndTime();
+            changed = true;
+        }
+        if (changed) {
+            boundsChanged();
+        }
+    }
+
+    // Recompute everything that depends on startTime/endTime.
+    private void boundsChanged() {
+        // only whole minutes inside the bounds can be used
+        startMinute = toMinutesCeil(startTime);
+        endMinute = toMinutes(endTime);
+        rebuildOccupancy();
+    }
+
+    private void rebuildOccupancy() {
+        occupancy.reset(startMinute, endMinute - startMinute);
+        for (TimeBlock timeBlock : blocks.values()) {
+            occupancy.markUsed(toMinutes(timeBlock.getStartTime()), toMinutesCeil(timeBlock.getEndTime()));
+        }
+        compileAvailability();
+    }
+
+    /*
+     * Rebuild the availability profile: the night of every day (when the
+     * context checks for it), every fixed block and every blackout. The
+     * same windows go into the blocked layer of the occupancy bitmap.
+     * Call this when the settings change. Adding, moving or removing fixed
+     * blocks and changing the context's night settings are picked up by
+     * getAvailability/getOccupancy on their own, toggling Task.setFixed is not.
+     */
+    public void compileAvailability() {
+        int capacity = 2 * ((endMinute - startMinute) / MINUTES_PER_DAY + 2) + blackouts.size() + blocks.size();
+        int[] starts = new int[capacity];
+        int[] ends = new int[capacity];
+        int count = 0;
+
+        compiledNightCheck = context.getNightCheck();
+        compiledNightEnd = context.getNightEnd();
+        compiledNightStart = context.getNightStart();
+        if (compiledNightCheck && compiledNightEnd != null && compiledNightStart != null) {
+            // a minute is night if it starts before nightEnd or ends after nightStart
+            int nightEndMinute = (compiledNightEnd.toSecondOfDay() + 59) / 60;
+            int nightStartMinute = compiledNightStart.toSecondOfDay() / 60;
+            int epochOffset = epoch.getHour() * 60 + epoch.getMinute();
+            int day = Math.floorDiv(startMinute + epochOffset, MINUTES_PER_DAY) * MINUTES_PER_DAY - epochOffset;
+            for (; day < endMinute; day += MINUTES_PER_DAY) {
+                starts[count] = day;
+                ends[count++] = day + nightEndMinute;
+                starts[count] = day + nightStartMinute;
+                ends[count++] = day + MINUTES_PER_DAY;
+            }
         }
+        for (LocalDateTime[] blackout : blackouts) {
+            starts[count] = toMinutes(blackout[0]);
+            ends[count++] = toMinutesCeil(blackout[1]);
+        }
+        for (TimeBlock timeBlock : blocks.values()) {
+            if (isFixed(timeBlock)) {
+                starts[count] = toMinutes(timeBlock.getStartTime());
+                ends[count++] = toMinutesCeil(timeBlock.getEndTime());
+            }
+        }
+        availability.compile(starts, ends, count);
+
+        occupancy.clearBlocked();
+        for (int i = 0; i < availability.size(); i++) {
+            occupancy.markBlocked(availability.getStart(i), availability.getEnd(i));
+        }
+        availabilityDirty = false;
+    }
+
+    // The compiled profile, recompiled first if something it depends on changed.
+    public AvailabilityProfile getAvailability() {
+        if (availabilityDirty || nightSettingsChanged()) {
+            compileAvailability();
+        }
+        return availability;
+    }
+
+    // True if [startMin, endMin) is free and outside every forbidden window.
+    public boolean isAvailable(int startMin, int endMin) {
+        return canInsert(startMin, endMin) && getAvailability().isAvailable(startMin, endMin);
+    }
+
+    // Keep movable blocks out of [from, to), for example a day off.
+    public void addBlackout(LocalDateTime from, LocalDateTime to) {
+        blackouts.add(new LocalDateTime[] {from, to});
+        availabilityDirty = true;
+    }
+
+    public void clearBlackouts() {
+        blackouts.clear();
+        availabilityDirty = true;
+    }
+
+    private boolean nightSettingsChanged() {
+        return context.getNightCheck() != compiledNightCheck
+                || !Objects.equals(context.getNightEnd(), compiledNightEnd)
+                || !Objects.equals(context.getNightStart(), compiledNightStart);
+    }
+
+    // The blocked layer is the availability profile.
+    public OccupancyBitmap getOccupancy() {
+        getAvailability();
+        return occupancy;
     }
 
     /*Schedule Management */
     public Task getEarliestTask() {
-        if (timeBlocks.isEmpty()) {return null;}
-        return timeBlocks.get(0).getTask();
+        if (blocks.isEmpty()) {return null;}
+        return blocks.firstEntry().getValue().getTask();
+    }
+    public void removeTask(Task task) {
+        for (TimeBlock timeBlock : getTimeBlocksForTask(task)) {
+            deleteBlock(timeBlock);
+        }
+    }
+    public void removeAll(){
+        if (openSavepoints > 0 && !undoing) {
+            for (TimeBlock timeBlock : blocks.values()) {
+                undoLog.add(new Change(timeBlock, false));
+            }
+        }
+        modCount++;
+        blocks.clear();
+        blocksByTaskId.clear();
+        Arrays.fill(byLength, null);
+        sortedView = null;
+        occupancy.clearUsed(startMinute, endMinute);
+        availabilityDirty = true;
+    }
+    public boolean containsTimeBlock(TimeBlock timeBlock){
+        if (timeBlock.getTask() == null) {
+            return keyOf(timeBlock) != null;
+        }
+        return containsIdentity(blocksByTaskId.get(timeBlock.getTask().getId()), timeBlock);
     }
-    public void removeTask(Task task) {timeBlocks.removeIf(block -> block.getTask().equals(task));}
-    public void removeAll(){timeBlocks.clear();} 
-    public boolean containsTimeBlock(TimeBlock timeBlock){return timeBlocks.contains(timeBlock);}
-    public void setStartTime(LocalDateTime startTime) {
-        this.startTime = startTime;
-        if (!isValid()) {
 
-            // save the tasks and delete them all
-            List<TimeBlock> oldBlocks = List.copyOf(timeBlocks);
-            // if the task fits then don't reorganize
-            timeBlocks.removeIf(t -> {
-                return !canInsertTimeBlock(t);
-            });
-
-            try {
-                // re-add the tasks to get them back in valid positions
-                for (TimeBlock timeblock : oldBlocks) {
-                    var res = algorithm.applyAlgorithm(this, timeblock.getTask());
-                    if (res == null) {
-                        throw new NoSpaceLeftException();
-                    }
+    // All blocks of a task (same id), found through the hash index.
+    public List<TimeBlock> getTimeBlocksForTask(Task task) {
+        List<TimeBlock> blocks = blocksByTaskId.get(task.getId());
+        return blocks == null ? List.of() : List.copyOf(blocks);
+    }
+
+    // The block of the task with this id, or null if it isn't scheduled.
+    public TimeBlock getTimeBlockByTaskId(String taskId) {
+        List<TimeBlock> blocks = blocksByTaskId.get(taskId);
+        return blocks == null ? null : blocks.get(0);
+    }
+
+    // The blocks whose start time is inside [from, to), ordered by start
+    // time. One subMap of the ordered blocks.
+    public List<TimeBlock> getTimeBlocksStartingBetween(LocalDateTime from, LocalDateTime to) {
+        List<TimeBlock> found = new ArrayList<>();
+        if (!from.isBefore(to)) {
+            return found;
+        }
+        for (TimeBlock timeBlock : blocks.subMap(key(toMinutes(from), 0), key(toMinutes(to) + 1, 0)).values()) {
+            if (!timeBlock.getStartTime().isBefore(from) && timeBlock.getStartTime().isBefore(to)) {
+                found.add(timeBlock);
+            }
+        }
+        return found;
+    }
+
+    // Blocks that overlap [from, to), ordered by start time. The ones that
+    // start inside are one subMap, the ones that start before 'from' are
+    // looked for per length class, at most one class length back.
+    public List<TimeBlock> getTimeBlocksOverlapping(LocalDateTime from, LocalDateTime to) {
+        List<TimeBlock> found = new ArrayList<>();
+        int fromMinute = toMinutes(from);
+        long inside = key(fromMinute, 0);
+        long last = key(toMinutesCeil(to) + 1, 0);
+        if (inside >= last) {
+            return found;
+        }
+        for (int c = 0; c < byLength.length; c++) {
+            if (byLength[c] == null) {
+                continue;
+            }
+            long first = key((int) Math.max(Integer.MIN_VALUE, (long) fromMinute - (1L << c)), 0);
+            for (TimeBlock timeBlock : byLength[c].subMap(first, inside).values()) {
+                if (timeBlock.getEndTime().isAfter(from)) {
+                    found.add(timeBlock);
                 }
-            } catch (NoSpaceLeftException e) {
-                // could not re-add tasks, restore tasks
-                System.out.println("Could not reorganize tasks after changing end time");
-                timeBlocks.clear();
-                timeBlocks.addAll(oldBlocks);
             }
-            
+        }
+        // started before 'from', put them in start order in front
+        found.sort(Comparator.comparing(TimeBlock::getStartTime));
+        for (TimeBlock timeBlock : blocks.subMap(inside, last).values()) {
+            if (timeBlock.getStartTime().isBefore(to) && timeBlock.getEndTime().isAfter(from)) {
+                found.add(timeBlock);
+            }
+        }
+        return found;
+    }
+
+    // Place a block the caller already checked (algorithms use this).
+    public void addTimeBlock(TimeBlock timeBlock) {
+        insertBlock(timeBlock);
+    }
+
+    // Place many blocks the caller already checked at once.
+    public void addTimeBlocks(Collection<TimeBlock> timeBlocks) {
+        for (TimeBlock timeBlock : timeBlocks) {
+            insertBlock(timeBlock);
+        }
+    }
+
+    public boolean removeTimeBlock(TimeBlock timeBlock) {
+        return deleteBlock(timeBlock);
+    }
+
+    // Take every block whose task isn't fixed out of the schedule and return
+    // them in start order, e.g. to place them again.
+    public List<TimeBlock> removeMovableTimeBlocks() {
+        List<TimeBlock> removed = new ArrayList<>();
+        for (TimeBlock timeBlock : List.copyOf(blocks.values())) {
+            if (timeBlock.getTask() == null || !timeBlock.getTask().isFixed()) {
+                deleteBlock(timeBlock);
+                removed.add(timeBlock);
+            }
+        }
+        return removed;
+    }
+
+    // Returns the removed blocks in start order.
+    public List<TimeBlock> removeTimeBlocksIf(Predicate<TimeBlock> filter) {
+        List<TimeBlock> removed = new ArrayList<>();
+        for (TimeBlock timeBlock : List.copyOf(blocks.values())) {
+            if (filter.test(timeBlock)) {
+                deleteBlock(timeBlock);
+                removed.add(timeBlock);
+            }
+        }
+        return removed;
+    }
+
+    // Change the times of a block that is in this schedule. Don't call the
+    // setters on the TimeBlock directly, the index would not see the change.
+    public void moveTimeBlock(TimeBlock timeBlock, LocalDateTime newStart, LocalDateTime newEnd) {
+        boolean present = deleteBlock(timeBlock);
+        timeBlock.setStartTime(newStart);
+        timeBlock.setEndTime(newEnd);
+        if (present) {
+            insertBlock(timeBlock);
+        }
+    }
+
+    /*
+     * Fix the schedule after one block was edited by hand: the movable blocks
+     * it now overlaps move to the free spot closest to where they were, the
+     * rest stays where it is. Each one first looks within its own length
+     * (or the edited block's, whichever is longer) around its old place and
+     * the window doubles until something fits, so a small edit only looks
+     * at a small part of the week. Returns the blocks that moved, or null if
+     * one of them fits nowhere (then nothing moves).
+     */
+    public List<TimeBlock> repair(TimeBlock changedBlock) {
+        List<TimeBlock> conflicts = new ArrayList<>();
+        for (TimeBlock other : getTimeBlocksOverlapping(changedBlock.getStartTime(), changedBlock.getEndTime())) {
+            if (other != changedBlock && !isFixed(other)) {
+                conflicts.add(other);
+            }
+        }
+        if (conflicts.isEmpty()) {
+            return conflicts;
+        }
+
+        Savepoint savepoint = begin();
+        for (TimeBlock conflict : conflicts) {
+            deleteBlock(conflict);
+        }
+        OccupancyBitmap bitmap = getOccupancy();
+        int changedLength = toMinutesCeil(changedBlock.getEndTime()) - toMinutes(changedBlock.getStartTime());
+        int first = bitmap.getBase();
+        int last = bitmap.getBase() + bitmap.getSize();
+        for (TimeBlock conflict : conflicts) {
+            int oldStart = toMinutes(conflict.getStartTime());
+            int length = toMinutesCeil(conflict.getEndTime()) - oldStart;
+            int radius = Math.max(Math.max(length, changedLength), 1);
+            int start = -1;
+            while (true) {
+                int from = Math.max(oldStart - radius, first);
+                int to = Math.min(oldStart + length + radius, last);
+                start = bitmap.nearestFit(oldStart, length, from, to, true);
+                if (start >= 0 || (from == first && to == last)) {
+                    break;
+                }
+                radius *= 2;
+            }
+            if (start < 0) {
+                System.out.println("Could not find room for " + conflict + " after the edit.");
+                rollback(savepoint);
+                return null;
+            }
+            Duration duration = Duration.between(conflict.getStartTime(), conflict.getEndTime());
+            conflict.setStartTime(fromMinutes(start));
+            conflict.setEndTime(fromMinutes(start).plus(duration));
+            insertBlock(conflict);
+        }
+        commit(savepoint);
+        return conflicts;
+    }
+
+    /*
+     * Transactions. begin() returns a savepoint and from then on every block
+     * that is added, removed or moved is written to an undo log. rollback()
+     * undoes the changes made after its savepoint, commit() keeps them. Both
+     * only cost as much as the number of changes, not the size of the
+     * schedule, so it's cheap to try something and take it back.
+     * Savepoints can be nested but have to be closed in reverse order. Only
+     * the blocks are covered, changing the bounds is not undone.
+     */
+    public static final class Savepoint {
+        private final int position;
+        private final int depth;
+
+        private Savepoint(int position, int depth) {
+            this.position = position;
+            this.depth = depth;
+        }
+    }
+
+    // one added (or removed) block and the times it had back then
+    private static final class Change {
+        final TimeBlock block;
+        final boolean inserted;
+        final LocalDateTime start;
+        final LocalDateTime end;
+
+        Change(TimeBlock block, boolean inserted) {
+            this.block = block;
+            this.inserted = inserted;
+            this.start = block.getStartTime();
+            this.end = block.getEndTime();
+        }
+    }
+
+    public Savepoint begin() {
+        openSavepoints++;
+        return new Savepoint(undoLog.size(), openSavepoints);
+    }
+
+    public void commit(Savepoint savepoint) {
+        close(savepoint);
+    }
+
+    public void rollback(Savepoint savepoint) {
+        checkInnermost(savepoint);
+        undoing = true;
+        try {
+            for (int i = undoLog.size() - 1; i >= savepoint.position; i--) {
+                Change change = undoLog.remove(i);
+                if (change.inserted) {
+                    deleteBlock(change.block);
+                } else {
+                    change.block.setStartTime(change.start);
+                    change.block.setEndTime(change.end);
+                    insertBlock(change.block);
+                }
+            }
+        } finally {
+            undoing = false;
+        }
+        close(savepoint);
+    }
+
+    private void close(Savepoint savepoint) {
+        checkInnermost(savepoint);
+        openSavepoints--;
+        if (openSavepoints == 0) {
+            undoLog.clear();
+        }
+    }
+
+    private void checkInnermost(Savepoint savepoint) {
+        if (savepoint.depth != openSavepoints) {
+            throw new IllegalStateException("Savepoints have to be closed in reverse order");
+        }
+    }
+
+    private void record(TimeBlock timeBlock, boolean inserted) {
+        if (openSavepoints > 0 && !undoing) {
+            undoLog.add(new Change(timeBlock, inserted));
+        }
+    }
+
+    private void insertBlock(TimeBlock timeBlock) {
+        if (containsTimeBlock(timeBlock)) {
+            return;
+        }
+        record(timeBlock, true);
+        modCount++;
+        sortedView = null;
+        int start = toMinutes(timeBlock.getStartTime());
+        int end = toMinutesCeil(timeBlock.getEndTime());
+        long key = key(start, insertions++);
+        blocks.put(key, timeBlock);
+        byLength[lengthClass(end - start)].put(key, timeBlock);
+        if (timeBlock.getTask() != null) {
+            blocksByTaskId.computeIfAbsent(timeBlock.getTask().getId(), id -> new ArrayList<>(1)).add(timeBlock);
+        }
+        occupancy.markUsed(start, end);
+        if (isFixed(timeBlock)) {
+            availabilityDirty = true;
+        }
+    }
+
+    private boolean deleteBlock(TimeBlock timeBlock) {
+        Long key = keyOf(timeBlock);
+        if (key == null) {
+            return false;
+        }
+        record(timeBlock, false);
+        modCount++;
+        sortedView = null;
+        blocks.remove(key);
+        // the times may have been changed behind our back, so the class
+        // it was put in isn't known for sure
+        for (TreeMap<Long, TimeBlock> ofClass : byLength) {
+            if (ofClass != null && ofClass.remove(key) != null) {
+                break;
+            }
+        }
+        if (timeBlock.getTask() != null) {
+            String taskId = timeBlock.getTask().getId();
+            List<TimeBlock> ofTask = blocksByTaskId.get(taskId);
+            if (ofTask != null) {
+                ofTask.removeIf(block -> block == timeBlock);
+                if (ofTask.isEmpty()) {
+                    blocksByTaskId.remove(taskId);
+                }
+            }
+        }
+        releaseOccupancy(timeBlock.getStartTime(), timeBlock.getEndTime());
+        if (isFixed(timeBlock)) {
+            availabilityDirty = true;
+        }
+        return true;
+    }
+
+    // Start minute in the high half, so the keys sort by start and then by
+    // the order the blocks came in.
+    private static long key(int startMinute, int insertion) {
+        return ((long) startMinute << 32) | (insertion & 0xFFFFFFFFL);
+    }
+
+    // Class c holds lengths in (2^(c-1), 2^c], made when first needed.
+    private int lengthClass(int length) {
+        int c = length <= 1 ? 0 : 32 - Integer.numberOfLeadingZeros(length - 1);
+        if (byLength[c] == null) {
+            byLength[c] = new TreeMap<>();
+        }
+        return c;
+    }
+
+    // Where the block is in 'blocks' (identity based, TimeBlock does not
+    // override equals), or null.
+    private Long keyOf(TimeBlock timeBlock) {
+        int start = toMinutes(timeBlock.getStartTime());
+        for (Map.Entry<Long, TimeBlock> entry : blocks.subMap(key(start, 0), key(start + 1, 0)).entrySet()) {
+            if (entry.getValue() == timeBlock) {return entry.getKey();}
+        }
+        // the block was changed without going through the schedule
+        for (Map.Entry<Long, TimeBlock> entry : blocks.entrySet()) {
+            if (entry.getValue() == timeBlock) {return entry.getKey();}
+        }
+        return null;
+    }
+
+    private static boolean isFixed(TimeBlock timeBlock) {
+        return timeBlock.getTask() != null && timeBlock.getTask().isFixed();
+    }
+
+    private static boolean containsIdentity(List<TimeBlock> blocks, TimeBlock timeBlock) {
+        if (blocks == null) {
+            return false;
+        }
+        for (TimeBlock block : blocks) {
+            if (block == timeBlock) {return true;}
+        }
+        return false;
+    }
+
+    // Clear the minutes of a removed block but keep the ones other blocks cover.
+    private void releaseOccupancy(LocalDateTime from, LocalDateTime to) {
+        occupancy.clearUsed(toMinutes(from), toMinutesCeil(to));
+        for (TimeBlock other : getTimeBlocksOverlapping(fromMinutes(toMinutes(from)), fromMinutes(toMinutesCeil(to)))) {
+            occupancy.markUsed(toMinutes(other.getStartTime()), toMinutesCeil(other.getEndTime()));
+        }
+    }
+
+    public void setStartTime(LocalDateTime startTime) {
+        this.startTime = startTime;
+        boundsChanged();
+        if (!isValid()) {
+            reorganize();
         }
     }
     public void setEndTime(LocalDateTime endTime) {
         this.endTime = endTime;
+        boundsChanged();
         if (!isValid()) {
+            reorganize();
+        }
+    }
 
-            // save the tasks and delete them all
-            List<TimeBlock> oldBlocks = List.copyOf(timeBlocks);
-            // if the task fits then don't reorganize
-            timeBlocks.removeIf(t -> {
-                return !canInsertTimeBlock(t);
-            });
-
-            try {
-                // re-add the tasks to get them back in valid positions
-                for (TimeBlock timeblock : oldBlocks) {
-                    var res = algorithm.applyAlgorithm(this, timeblock.getTask());
-                    if (res == null) {
-                        throw new NoSpaceLeftException();
-                    }
+    // Place the blocks again after the bounds changed, or leave everything as
+    // it was if they don't fit anymore.
+    private void reorganize() {
+        Savepoint savepoint = begin();
+        // if the task fits then don't reorganize
+        List<TimeBlock> removed = removeTimeBlocksIf(t -> {
+            return !canInsertTimeBlock(t);
+        });
+
+        try {
+            // re-add the tasks to get them back in valid positions
+            for (TimeBlock timeblock : removed) {
+                var res = algorithm.applyAlgorithm(this, timeblock.getTask());
+                if (res == null) {
+                    throw new NoSpaceLeftException();
                 }
-            } catch (NoSpaceLeftException e) {
-                // could not re-add tasks, restore tasks
-                System.out.println("Could not reorganize tasks after changing end time");
-                timeBlocks.clear();
-                timeBlocks.addAll(oldBlocks);
             }
+            commit(savepoint);
+        } catch (NoSpaceLeftException e) {
+            // could not re-add tasks, restore tasks
+            System.out.println("Could not reorganize tasks after changing the schedule bounds");
+            rollback(savepoint);
         }
     }
     public void mergeWith(Schedule schedule) {
-
-        // add each time block from the other schedule into this one; add task will take
-        // care
-        // of rearranging blocks to keep the schedule valid if needed
-        for (TimeBlock timeblock : schedule.getTimeBlocks()) {
-            addTask(timeblock.getTask());
-        }
-
-        // expand the time constraints if needed
+        // expand the time constraints if needed, first so the blocks of the
+        // other schedule can keep their times
         if (schedule.getStartTime().isBefore(getStartTime())) {
             setStartTime(schedule.getStartTime());
         }
         if (schedule.getEndTime().isAfter(getEndTime())) {
             setEndTime(schedule.getEndTime());
         }
+
+        // Both lists are sorted by start, so walk them together like a merge
+        // join. An incoming block that doesn't touch anything (and for a
+        // movable one, isn't in a blocked minute) is copied over as is, only
+        // the ones that conflict go through the algorithm.
+        List<TimeBlock> incoming = schedule.getTimeBlocks();
+        List<TimeBlock> timeBlocks = getTimeBlocks();
+        List<TimeBlock> fitting = new ArrayList<>();
+        List<Task> conflicting = new ArrayList<>();
+        LocalDateTime latestEnd = null;
+        int existing = 0;
+        for (TimeBlock timeBlock : incoming) {
+            // everything already here that starts before (or with) this block
+            while (existing < timeBlocks.size()
+                    && !timeBlocks.get(existing).getStartTime().isAfter(timeBlock.getStartTime())) {
+                latestEnd = later(latestEnd, timeBlocks.get(existing).getEndTime());
+                existing++;
+            }
+            boolean clearBefore = latestEnd == null || !latestEnd.isAfter(timeBlock.getStartTime());
+            boolean clearAfter = existing == timeBlocks.size()
+                    || !timeBlocks.get(existing).getStartTime().isBefore(timeBlock.getEndTime());
+            if (clearBefore && clearAfter && isBound(timeBlock) && allowedHere(timeBlock)) {
+                fitting.add(new TimeBlock(timeBlock.getTask(), timeBlock.getStartTime(), timeBlock.getEndTime()));
+                latestEnd = later(latestEnd, timeBlock.getEndTime());
+            } else {
+                conflicting.add(timeBlock.getTask());
+            }
+        }
+        addTimeBlocks(fitting);
+        addTasks(conflicting);
+    }
+
+    // A movable block can't be copied into the night, a blackout or a fixed
+    // block of this schedule, the algorithms would never put it there.
+    private boolean allowedHere(TimeBlock timeBlock) {
+        return isFixed(timeBlock) || getOccupancy().isFree(toMinutes(timeBlock.getStartTime()),
+                toMinutesCeil(timeBlock.getEndTime()), true);
     }
+
+    private static LocalDateTime later(LocalDateTime a, LocalDateTime b) {
+        return a == null || b.isAfter(a) ? b : a;
+    }
+
+    // A separate schedule with the same bounds, blackouts, night and blocks
+    // that uses 'algorithm'. The blocks are new TimeBlocks for the same tasks,
+    // so the copy can be changed without touching this one. Its context is
+    // seeded from this one's random numbers, the same seed gives the same copies.
+    public Schedule copy(Algorithm algorithm) {
+        Schedule copy = new Schedule(startTime, endTime, algorithm);
+        copy.context = context.copy(context.getRandom().nextLong());
+        copy.blackouts.addAll(blackouts);
+        copy.availabilityDirty = true;
+        for (TimeBlock timeBlock : blocks.values()) {
+            copy.insertBlock(new TimeBlock(timeBlock.getTask(), timeBlock.getStartTime(), timeBlock.getEndTime()));
+        }
+        return copy;
+    }
+
+    /*
+     * Make the schedule look like 'plan', a copy of it that was changed. A
+     * task that already had a block keeps that block, moved to where the
+     * plan has it (the GUI holds on to them). Blocks for new tasks are
+     * added as they are. Done under one savepoint.
+     */
+    public void adopt(Schedule plan) {
+        Savepoint savepoint = begin();
+        Map<Task, ArrayDeque<TimeBlock>> blocksOfTask = new IdentityHashMap<>();
+        for (TimeBlock timeBlock : List.copyOf(blocks.values())) {
+            blocksOfTask.computeIfAbsent(timeBlock.getTask(), task -> new ArrayDeque<>()).add(timeBlock);
+            deleteBlock(timeBlock);
+        }
+        for (TimeBlock timeBlock : plan.getTimeBlocks()) {
+            ArrayDeque<TimeBlock> previous = blocksOfTask.get(timeBlock.getTask());
+            TimeBlock from = previous == null ? null : previous.poll();
+            if (from == null) {
+                insertBlock(timeBlock);
+            } else {
+                from.setStartTime(timeBlock.getStartTime());
+                from.setEndTime(timeBlock.getEndTime());
+                insertBlock(from);
+            }
+        }
+        commit(savepoint);
+    }
+
     public void addTimeBlockManually(TimeBlock timeBlock) {
         adjustScheduleBounds(timeBlock);
         if (!isBound(timeBlock)) {
             throw new RuntimeException("Tried to add timeblock outside of schedule bounds.");
         }
-        timeBlocks.add(timeBlock);
+        insertBlock(timeBlock);
     }
     
 
     private List<Task> getTasks() {
         ArrayList<Task> tasks = new ArrayList<>();
-        for (TimeBlock timeBlock : timeBlocks) {
+        for (TimeBlock timeBlock : blocks.values()) {
             tasks.add(timeBlock.getTask());
         }
         return tasks;
@@ -276,10 +954,10 @@ public class Schedule {
    
     @Override
     public String toString() {
-        if(timeBlocks.isEmpty()){return"";}
+        if(blocks.isEmpty()){return"";}
 
         String retval = "";
-        for (TimeBlock timeblock : timeBlocks) {
+        for (TimeBlock timeblock : blocks.values()) {
             retval += timeblock.getTask().getDescription() + ": " +
                     timeblock.getStartTime() + " - " + timeblock.getEndTime() + "\n";
         }
@@ -299,6 +977,10 @@ public class Schedule {
             return this.algorithm;
         }
 
+        public SchedulingContext getContext() {
+            return this.context;
+        }
+
 
 //---------------------------No Longer usefull code if --------------------------------------------//    
 /*                        We Remove the Priority Algorithm                   
@@ -0,0 +1,81 @@
+package model;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Scores a whole Schedule so different plans for the same week can be
+ * compared, lower is better. Used by ParallelReschedule to keep the best of
+ * several reschedules. Objectives should only read the schedule, they are
+ * called from several threads at once (on different schedules).
+ */
+public interface ScheduleObjective {
+
+    public double score(Schedule schedule);
+
+    // Keep as much room before the deadlines as possible: minus the smallest
+    // slack (in minutes) of any block. Late blocks have negative slack.
+    public static ScheduleObjective deadlineSlack() {
+        return schedule -> {
+            long smallest = Long.MAX_VALUE;
+            for (TimeBlock timeBlock : schedule.getTimeBlocks()) {
+                Task task = timeBlock.getTask();
+                if (task == null || task.getDeadline() == null) {
+                    continue;
+                }
+                smallest = Math.min(smallest, Duration.between(timeBlock.getEndTime(), task.getDeadline()).toMinutes());
+            }
+            return smallest == Long.MAX_VALUE ? 0 : -smallest;
+        };
+    }
+
+    // Important tasks early: every start (in minutes after the schedule start)
+    // is divided by the priority, 1 being the most important.
+    public static ScheduleObjective priorityWeightedStart() {
+        return schedule -> {
+            double total = 0;
+            for (TimeBlock timeBlock : schedule.getTimeBlocks()) {
+                Task task = timeBlock.getTask();
+                int priority = task == null || task.getPriority() == null ? 5 : Math.max(1, task.getPriority());
+                total += Duration.between(schedule.getStartTime(), timeBlock.getStartTime()).toMinutes() / (double) priority;
+            }
+            return total;
+        };
+    }
+
+    // Minutes late of every block times its weight (1 / priority, so
+    // priority 1 counts the most). 0 when every deadline is met.
+    public static ScheduleObjective weightedTardiness() {
+        return schedule -> {
+            double total = 0;
+            for (TimeBlock timeBlock : schedule.getTimeBlocks()) {
+                Task task = timeBlock.getTask();
+                if (task == null || task.getDeadline() == null || !timeBlock.getEndTime().isAfter(task.getDeadline())) {
+                    continue;
+                }
+                int priority = task.getPriority() == null ? 5 : Math.max(1, task.getPriority());
+                total += Duration.between(task.getDeadline(), timeBlock.getEndTime()).toMinutes() / (double) priority;
+            }
+            return total;
+        };
+    }
+
+    // Spread the work over the days: sum of the squared minutes scheduled on
+    // each day. For the same total this is smallest when every day is equal.
+    public static ScheduleObjective dayBalance() {
+        return schedule -> {
+            Map<LocalDate, Long> minutesPerDay = new HashMap<>();
+            for (TimeBlock timeBlock : schedule.getTimeBlocks()) {
+                long minutes = Duration.between(timeBlock.getStartTime(), timeBlock.getEndTime()).toMinutes();
+                minutesPerDay.merge(timeBlock.getStartTime().toLocalDate(), minutes, Long::sum);
+            }
+            double total = 0;
+            for (long minutes : minutesPerDay.values()) {
+                total += (double) minutes * minutes;
+            }
+            return total;
+        };
+    }
+}
@@ -11,6 +11,7 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.List;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -50,6 +51,23 @@ public class ScheduleTest {
         assertEquals(task2, schedule.getTimeBlocks().get(0).getTask(), "Remaining task should be Task 2.");
     }
 
+    // Looking up blocks by task goes through the task id index and should
+    // follow adds and removes.
+    @Test
+    public void testGetTimeBlocksForTask() {
+        TimeBlock t1 = schedule.addTask(task1);
+        schedule.addTask(task2);
+        assertEquals(1, schedule.getTimeBlocksForTask(task1).size());
+        assertEquals(t1, schedule.getTimeBlockByTaskId(task1.getId()));
+        assertEquals(true, schedule.containsTimeBlock(t1));
+
+        schedule.removeTask(task1);
+        assertEquals(0, schedule.getTimeBlocksForTask(task1).size());
+        assertEquals(null, schedule.getTimeBlockByTaskId(task1.getId()));
+        assertEquals(false, schedule.containsTimeBlock(t1));
+        assertEquals(1, schedule.getTimeBlocks().size());
+    }
+
     // Merge but do not check if it is valid. Simply check if the items have
     // even been transfered over.
     @Test
@@ -125,6 +143,58 @@ public class ScheduleTest {
                 "Schedule should be valid since timeblocks will have to be reorganized.");
     }
 
+    // Blocks that don't conflict keep their times when merging, the others
+    // are placed again by the algorithm.
+    @Test
+    public void testMergeWithKeepsFittingBlocks() {
+        Schedule otherSchedule = new Schedule(
+            LocalDateTime.of(2024, 10, 1, 0, 0),
+            LocalDateTime.of(2024, 10, 2, 0, 0),
+            new RandomAlgorithm());
+        schedule.addTimeBlockManually(new TimeBlock(task1,
+                LocalDateTime.of(2024, 10, 1, 8, 0), LocalDateTime.of(2024, 10, 1, 10, 0)));
+        otherSchedule.addTimeBlockManually(new TimeBlock(task2,
+                LocalDateTime.of(2024, 10, 1, 9, 0), LocalDateTime.of(2024, 10, 1, 11, 0)));
+        otherSchedule.addTimeBlockManually(new TimeBlock(task3,
+                LocalDateTime.of(2024, 10, 1, 12, 0), LocalDateTime.of(2024, 10, 1, 15, 0)));
+
+        schedule.mergeWith(otherSchedule);
+        assertEquals(3, schedule.getTimeBlocks().size());
+        assertEquals(true, schedule.isValid());
+        assertEquals(LocalDateTime.of(2024, 10, 1, 12, 0), schedule.getTimeBlockByTaskId(task3.getId()).getStartTime(),
+                "Task 3 fits so it keeps its time");
+        assertEquals(false, schedule.canInsert(12 * 60, 13 * 60), "Indexes should see the copied block");
+    }
+
+    // A movable block at night is not copied over as it is, it goes through
+    // the algorithm like a conflict. A fixed one keeps its time.
+    @Test
+    public void testMergeWithRespectsNight() {
+        schedule.setAlgorithm(new UniformDistributeAlgorithm());
+        Schedule otherSchedule = new Schedule(
+            LocalDateTime.of(2024, 10, 1, 0, 0),
+            LocalDateTime.of(2024, 10, 2, 0, 0),
+            new RandomAlgorithm());
+        Task fixed = new Task("Fixed", 1, 1.0, null, true);
+        otherSchedule.addTimeBlockManually(new TimeBlock(task1,
+                LocalDateTime.of(2024, 10, 1, 1, 0), LocalDateTime.of(2024, 10, 1, 3, 0)));
+        otherSchedule.addTimeBlockManually(new TimeBlock(fixed,
+                LocalDateTime.of(2024, 10, 1, 23, 0), LocalDateTime.of(2024, 10, 1, 23, 59)));
+
+        schedule.mergeWith(otherSchedule);
+        TimeBlock moved = schedule.getTimeBlockByTaskId(task1.getId());
+        assertEquals(false, schedule.checkIfIntersectingNight(moved, LocalTime.of(5, 0), LocalTime.of(22, 0)),
+                "Task 1 was placed again outside the night");
+        assertEquals(LocalDateTime.of(2024, 10, 1, 23, 0), schedule.getTimeBlockByTaskId(fixed.getId()).getStartTime());
+        assertEquals(true, schedule.isValid());
+    }
+
+    @Test
+    public void testAddTasks() {
+        assertEquals(4, schedule.addTasks(List.of(task1, task2, task3, task4)).size());
+        assertEquals(true, schedule.isValid());
+    }
+
     // Merge the start and end times from two different schedules. We merge
     // them by extending the time to include both the schedules.
     @Test
@@ -193,6 +263,167 @@ public class ScheduleTest {
         // TODO maybe add tests for adding a time block manually.
     }
 
+    // Blocks that are moved through the schedule should be found at their new
+    // position and not at the old one.
+    @Test
+    public void testMoveTimeBlock() {
+        TimeBlock t1 = new TimeBlock(task1, LocalDateTime.of(2024, 10, 1, 9, 0), LocalDateTime.of(2024, 10, 1, 11, 0));
+        schedule.addTimeBlockManually(t1);
+        assertEquals(false, schedule.canInsertTimeBlock(
+                new TimeBlock(LocalDateTime.of(2024, 10, 1, 10, 0), LocalDateTime.of(2024, 10, 1, 10, 30))),
+                "Should overlap with the block at 9 AM");
+
+        schedule.moveTimeBlock(t1, LocalDateTime.of(2024, 10, 1, 13, 0), LocalDateTime.of(2024, 10, 1, 15, 0));
+        assertEquals(true, schedule.canInsertTimeBlock(
+                new TimeBlock(LocalDateTime.of(2024, 10, 1, 10, 0), LocalDateTime.of(2024, 10, 1, 10, 30))),
+                "Block was moved so the old position should be free");
+        assertEquals(1, schedule.getTimeBlocksOverlapping(
+                LocalDateTime.of(2024, 10, 1, 14, 0), LocalDateTime.of(2024, 10, 1, 16, 0)).size(),
+                "Block should be found at its new position");
+        assertEquals(true, schedule.containsTimeBlock(t1), "Block is still part of the schedule");
+    }
+
+    // A block that started long before the query still overlaps it, the
+    // short ones just before it that end in time don't, whatever the
+    // longest block in the schedule is.
+    @Test
+    public void testOverlappingWithLongBlock() {
+        Schedule week = new Schedule(LocalDateTime.of(2024, 10, 1, 0, 0), LocalDateTime.of(2024, 10, 8, 0, 0),
+                new SequentialAlgorithm());
+        TimeBlock vacation = new TimeBlock(new Task("Vacation", 1, 100.0, null, true),
+                LocalDateTime.of(2024, 10, 1, 0, 0), LocalDateTime.of(2024, 10, 5, 4, 0));
+        TimeBlock early = new TimeBlock(task1, LocalDateTime.of(2024, 10, 6, 9, 0), LocalDateTime.of(2024, 10, 6, 11, 0));
+        TimeBlock across = new TimeBlock(task2, LocalDateTime.of(2024, 10, 6, 11, 0), LocalDateTime.of(2024, 10, 6, 12, 30));
+        TimeBlock inside = new TimeBlock(task3, LocalDateTime.of(2024, 10, 6, 12, 30), LocalDateTime.of(2024, 10, 6, 13, 0));
+        week.addTimeBlocks(List.of(vacation, early, across, inside));
+
+        assertEquals(List.of(across, inside), week.getTimeBlocksOverlapping(
+                LocalDateTime.of(2024, 10, 6, 12, 0), LocalDateTime.of(2024, 10, 6, 13, 0)));
+        assertEquals(List.of(vacation), week.getTimeBlocksOverlapping(
+                LocalDateTime.of(2024, 10, 5, 3, 0), LocalDateTime.of(2024, 10, 5, 5, 0)), "Started days before");
+
+        week.removeTimeBlock(vacation);
+        assertEquals(List.of(), week.getTimeBlocksOverlapping(
+                LocalDateTime.of(2024, 10, 5, 3, 0), LocalDateTime.of(2024, 10, 5, 5, 0)));
+        assertEquals(true, week.getOccupancy().isFree(week.getStartMinute(), week.toMinutes(early.getStartTime()), false),
+                "The minutes of the removed block are free again");
+    }
+
+    // The first slot should be right after the blocking task and the last
+    // slot should end right at the limit we give it.
+    @Test
+    public void testFindAvailableSlots() {
+        schedule.addTimeBlockManually(new TimeBlock(task1,
+                LocalDateTime.of(2024, 10, 1, 0, 0), LocalDateTime.of(2024, 10, 1, 9, 0)));
+        schedule.addTimeBlockManually(new TimeBlock(task2,
+                LocalDateTime.of(2024, 10, 1, 10, 0), LocalDateTime.of(2024, 10, 1, 18, 0)));
+
+        // the hour between 9 and 10 is too short for 2 hours
+        assertEquals(LocalDateTime.of(2024, 10, 1, 18, 0),
+                schedule.findNextAvailableSlotWithinBounds(LocalDateTime.of(2024, 10, 1, 8, 0),
+                        LocalDateTime.of(2024, 10, 2, 0, 0), 2.0));
+        assertEquals(LocalDateTime.of(2024, 10, 1, 9, 0),
+                schedule.findNextAvailableSlotWithinBounds(LocalDateTime.of(2024, 10, 1, 8, 0),
+                        LocalDateTime.of(2024, 10, 2, 0, 0), 1.0));
+        assertEquals(LocalDateTime.of(2024, 10, 1, 20, 0),
+                schedule.findLastAvailableSlotWithinBounds(LocalDateTime.of(2024, 10, 1, 0, 0),
+                        LocalDateTime.of(2024, 10, 1, 21, 0), 1.0));
+        assertEquals(null,
+                schedule.findLastAvailableSlotWithinBounds(LocalDateTime.of(2024, 10, 1, 0, 0),
+                        LocalDateTime.of(2024, 10, 1, 17, 0), 2.0));
+    }
+
+    // The minute based checks should agree with the TimeBlock based ones.
+    @Test
+    public void testCanInsertMinutes() {
+        schedule.addTimeBlockManually(new TimeBlock(task1,
+                LocalDateTime.of(2024, 10, 1, 9, 0), LocalDateTime.of(2024, 10, 1, 10, 0)));
+        int nine = schedule.toMinutes(LocalDateTime.of(2024, 10, 1, 9, 0));
+        assertEquals(9 * 60, nine, "Epoch is the start of the schedule");
+        assertEquals(false, schedule.canInsert(nine + 30, nine + 90), "Overlaps the block at 9 AM");
+        assertEquals(true, schedule.canInsert(nine + 60, nine + 90), "Flush against the block at 9 AM");
+        assertEquals(true, schedule.canInsert(nine - 60, nine), "Flush against the block at 9 AM");
+        assertEquals(false, schedule.canInsert(-15, 15), "Starts before the schedule");
+        assertEquals(false, schedule.canInsert(23 * 60, 25 * 60), "Ends after the schedule");
+        assertEquals(LocalDateTime.of(2024, 10, 1, 10, 0), schedule.fromMinutes(nine + 60));
+        assertEquals(true, schedule.intersectsNight(nine - 6 * 60, nine, LocalTime.of(5, 0), LocalTime.of(22, 0)),
+                "3 AM to 9 AM is in the night");
+        assertEquals(false, schedule.intersectsNight(nine, nine + 60, LocalTime.of(5, 0), LocalTime.of(22, 0)),
+                "9 AM to 10 AM is not in the night");
+    }
+
+    // Rolling back a savepoint undoes adds, removes and moves made after it,
+    // committing keeps them.
+    @Test
+    public void testSavepointRollback() {
+        TimeBlock first = new TimeBlock(task1, LocalDateTime.of(2024, 10, 1, 8, 0), LocalDateTime.of(2024, 10, 1, 10, 0));
+        TimeBlock second = new TimeBlock(task2, LocalDateTime.of(2024, 10, 1, 12, 0), LocalDateTime.of(2024, 10, 1, 13, 0));
+        schedule.addTimeBlockManually(first);
+        schedule.addTimeBlockManually(second);
+
+        Schedule.Savepoint savepoint = schedule.begin();
+        schedule.moveTimeBlock(first, LocalDateTime.of(2024, 10, 1, 14, 0), LocalDateTime.of(2024, 10, 1, 16, 0));
+        schedule.removeTimeBlock(second);
+        schedule.addTask(task3);
+        schedule.rollback(savepoint);
+
+        assertEquals(2, schedule.getTimeBlocks().size(), "Task 3 should be gone again");
+        assertEquals(first, schedule.getTimeBlocks().get(0));
+        assertEquals(LocalDateTime.of(2024, 10, 1, 8, 0), first.getStartTime(), "Move should be undone");
+        assertEquals(second, schedule.getTimeBlockByTaskId(task2.getId()), "Remove should be undone");
+        assertEquals(false, schedule.canInsert(8 * 60, 9 * 60), "Indexes should follow the rollback");
+
+        savepoint = schedule.begin();
+        schedule.removeAll();
+        schedule.commit(savepoint);
+        assertEquals(0, schedule.getTimeBlocks().size());
+    }
+
+    // Moving one block only pushes the blocks it now overlaps to the closest
+    // free spot, everything else stays put.
+    @Test
+    public void testRepairAfterEdit() {
+        TimeBlock t1 = new TimeBlock(task1, LocalDateTime.of(2024, 10, 1, 8, 0), LocalDateTime.of(2024, 10, 1, 10, 0));
+        TimeBlock t2 = new TimeBlock(task2, LocalDateTime.of(2024, 10, 1, 10, 0), LocalDateTime.of(2024, 10, 1, 11, 30));
+        TimeBlock t3 = new TimeBlock(task3, LocalDateTime.of(2024, 10, 1, 12, 0), LocalDateTime.of(2024, 10, 1, 15, 0));
+        TimeBlock t4 = new TimeBlock(task4, LocalDateTime.of(2024, 10, 1, 20, 0), LocalDateTime.of(2024, 10, 1, 21, 0));
+        schedule.addTimeBlockManually(t1);
+        schedule.addTimeBlockManually(t2);
+        schedule.addTimeBlockManually(t3);
+        schedule.addTimeBlockManually(t4);
+        assertEquals(0, schedule.repair(t4).size(), "Nothing in the way");
+
+        schedule.moveTimeBlock(t3, LocalDateTime.of(2024, 10, 1, 9, 0), LocalDateTime.of(2024, 10, 1, 12, 0));
+        assertEquals(2, schedule.repair(t3).size());
+        assertEquals(true, schedule.isValid());
+        assertEquals(LocalDateTime.of(2024, 10, 1, 7, 0), t1.getStartTime(), "Just before the edited block");
+        assertEquals(LocalDateTime.of(2024, 10, 1, 12, 0), t2.getStartTime(), "Just after the edited block");
+        assertEquals(LocalDateTime.of(2024, 10, 1, 20, 0), t4.getStartTime());
+    }
+
+    // Blocks are kept sorted by start no matter the order they were added in.
+    // A long block that overlaps a block further down should still be found.
+    @Test
+    public void testSortedAndValid() {
+        TimeBlock late = new TimeBlock(task1, LocalDateTime.of(2024, 10, 1, 15, 0), LocalDateTime.of(2024, 10, 1, 16, 0));
+        TimeBlock early = new TimeBlock(task2, LocalDateTime.of(2024, 10, 1, 8, 0), LocalDateTime.of(2024, 10, 1, 9, 0));
+        TimeBlock middle = new TimeBlock(task3, LocalDateTime.of(2024, 10, 1, 10, 0), LocalDateTime.of(2024, 10, 1, 11, 0));
+        schedule.addTimeBlockManually(late);
+        schedule.addTimeBlockManually(early);
+        schedule.addTimeBlockManually(middle);
+        assertEquals(early, schedule.getTimeBlocks().get(0));
+        assertEquals(middle, schedule.getTimeBlocks().get(1));
+        assertEquals(late, schedule.getTimeBlocks().get(2));
+        assertEquals(task2, schedule.getEarliestTask());
+        assertEquals(true, schedule.isValid());
+        assertEquals(1, schedule.getTimeBlocksStartingBetween(
+                LocalDateTime.of(2024, 10, 1, 9, 0), LocalDateTime.of(2024, 10, 1, 15, 0)).size());
+
+        // 8 AM block now runs until 4 PM, overlapping both other blocks
+        schedule.moveTimeBlock(early, LocalDateTime.of(2024, 10, 1, 8, 0), LocalDateTime.of(2024, 10, 1, 15, 30));
+        assertEquals(false, schedule.isValid(), "The long block overlaps the block at 3 PM");
+    }
+
     @Test
     public void testCheckIfIntersectingNight(){
         Schedule schedule = new Schedule(
@@ -211,22 +442,22 @@ public class ScheduleTest {
         
         // test if intersecting from 10 AM to the next day at 10 AM
         TimeBlock longBlock = new TimeBlock(task1, tenAM, nextDayTenAM);
-        boolean result = schedule.checkIfIntersectingNight(longBlock, randAlgorithm.nightEnd, randAlgorithm.nightStart);
+        boolean result = schedule.checkIfIntersectingNight(longBlock, schedule.getContext().getNightEnd(), schedule.getContext().getNightStart());
         assertEquals(true, result, "Expected intersection at night 10 AM to the next day at 10 AM");
 
         // test if intersecting into the late night (2 AM to 10 AM)
         TimeBlock lateNightBlock = new TimeBlock(task2, tenAM.minusHours(8), tenAM);
-        result = schedule.checkIfIntersectingNight(lateNightBlock, randAlgorithm.nightEnd, randAlgorithm.nightStart);
+        result = schedule.checkIfIntersectingNight(lateNightBlock, schedule.getContext().getNightEnd(), schedule.getContext().getNightStart());
         assertEquals(true, result, "Expected intersection at intersecting night into the late night (2 AM to 10 AM)");
         
         // test if intersecting into the early night (10 AM to 11 PM)
         TimeBlock earlyNightBlock = new TimeBlock(task3, tenAM, tenAM.plusHours(13));
-        result = schedule.checkIfIntersectingNight(earlyNightBlock, randAlgorithm.nightEnd, randAlgorithm.nightStart);
+        result = schedule.checkIfIntersectingNight(earlyNightBlock, schedule.getContext().getNightEnd(), schedule.getContext().getNightStart());
         assertEquals(true, result, "Expected intersection at intersecting night into the early night (10 AM to 11 PM)");
         
         // test if a normal time block intersects (10 AM to 1 PM)
         TimeBlock normalBlock = new TimeBlock(task4, tenAM, tenAM.plusHours(3));
-        result = schedule.checkIfIntersectingNight(normalBlock, randAlgorithm.nightEnd, randAlgorithm.nightStart);
+        result = schedule.checkIfIntersectingNight(normalBlock, schedule.getContext().getNightEnd(), schedule.getContext().getNightStart());
         assertEquals(false, result, "Expected intersection atintersecting night into the early night 10 AM to 1 PM");
 
         // TODO maybe test for having be flush against the time?
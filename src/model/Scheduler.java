@@ -13,7 +13,8 @@ public class Scheduler {
 
     /**
      * Schedules a task as close to its deadline as possible, within the current week.
-     * Falls back to the earliest available slot if no slot near the deadline is found.
+     * Falls back to the earliest available slot after the deadline if nothing
+     * fits before it.
      *
      * @param task The task to be scheduled.
      * @param weekStart The start of the current week.
@@ -30,12 +31,13 @@ public class Scheduler {
             latestStart = weekEnd.minus(Duration.ofMinutes((long) (task.getEstimatedTime() * 60)));
         }
 
-        // Try to place the task close to its deadline within the current week
-        LocalDateTime taskStartTime = schedule.findNextAvailableSlotWithinBounds(latestStart, weekEnd, task.getEstimatedTime());
+        // Try to place the task as late as possible while still meeting the deadline
+        LocalDateTime deadlineBound = latestStart.plus(Duration.ofMinutes((long) (task.getEstimatedTime() * 60)));
+        LocalDateTime taskStartTime = schedule.findLastAvailableSlotWithinBounds(weekStart, deadlineBound, task.getEstimatedTime());
 
-        // Fallback to the earliest available slot if no late slot is found
+        // Fallback to the earliest available slot after that (the task will be late)
         if (taskStartTime == null) {
-            taskStartTime = schedule.findNextAvailableSlotWithinBounds(weekStart, latestStart, task.getEstimatedTime());
+            taskStartTime = schedule.findNextAvailableSlotWithinBounds(latestStart, weekEnd, task.getEstimatedTime());
         }
 
         // Create and return the TimeBlock if a valid start time was found
@@ -0,0 +1,112 @@
+package model;
+
+import java.time.LocalTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Everything an algorithm needs that changes from call to call: the random
+ * numbers, the constraints (the night) and scratch space. Every Schedule
+ * owns one and passes it to its algorithm, so the algorithms themselves
+ * only hold their configuration and one instance can be shared by every
+ * week, on any number of threads. A context belongs to one schedule and,
+ * like the schedule, is only used by one thread at a time.
+ */
+public class SchedulingContext {
+    private Random random;
+    private LocalTime nightStart = LocalTime.of(22, 0);
+    private LocalTime nightEnd = LocalTime.of(5, 0);
+    private boolean nightCheck = true;
+    // reused between calls, see longScratch/intScratch
+    private long[] longScratch = new long[0];
+    private int[] intScratch = new int[0];
+    // what the algorithms keep about this schedule between calls, by the
+    // class of the state object. Not copied, a copy starts without them.
+    private final Map<Class<?>, Object> states = new HashMap<>();
+
+    // Different random numbers every time. For repeatable runs give it a
+    // seed, like Calendar does for its weeks.
+    public SchedulingContext() {
+        this.random = new Random();
+    }
+
+    public SchedulingContext(long seed) {
+        this.random = new Random(seed);
+    }
+
+    // A context for another schedule with the same constraints and its own
+    // random numbers. Scratch space and state are not shared.
+    public SchedulingContext copy(long seed) {
+        SchedulingContext copy = new SchedulingContext(seed);
+        copy.nightStart = nightStart;
+        copy.nightEnd = nightEnd;
+        copy.nightCheck = nightCheck;
+        return copy;
+    }
+
+    public Random getRandom() {
+        return random;
+    }
+
+    // Start the random numbers over, e.g. to repeat a run.
+    public void reseed(long seed) {
+        random = new Random(seed);
+    }
+
+    // An array of exactly 'length' longs. The same one comes back while the
+    // length stays the same (a week always has the same size), so don't hold
+    // on to it across calls. The contents are whatever was left in it.
+    public long[] longScratch(int length) {
+        if (longScratch.length != length) {
+            longScratch = new long[length];
+        }
+        return longScratch;
+    }
+
+    public int[] intScratch(int length) {
+        if (intScratch.length != length) {
+            intScratch = new int[length];
+        }
+        return intScratch;
+    }
+
+    // An algorithm's state for this schedule, or null. Each algorithm uses
+    // a state class of its own as the key, the context doesn't look inside.
+    public <T> T getState(Class<T> type) {
+        return type.cast(states.get(type));
+    }
+
+    // null forgets it
+    public <T> void setState(Class<T> type, T state) {
+        if (state == null) {
+            states.remove(type);
+        } else {
+            states.put(type, state);
+        }
+    }
+
+    public LocalTime getNightStart() {
+        return nightStart;
+    }
+
+    public void setNightStart(LocalTime nightStart) {
+        this.nightStart = nightStart;
+    }
+
+    public LocalTime getNightEnd() {
+        return nightEnd;
+    }
+
+    public void setNightEnd(LocalTime nightEnd) {
+        this.nightEnd = nightEnd;
+    }
+
+    public void setNightCheck(boolean nightCheck) {
+        this.nightCheck = nightCheck;
+    }
+
+    public boolean getNightCheck() {
+        return nightCheck;
+    }
+}
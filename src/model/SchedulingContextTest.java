@@ -0,0 +1,61 @@
+package model;
+
+/**
+ * Test cases for the per-schedule context.
+ */
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class SchedulingContextTest {
+    // One algorithm for several weeks at once: each schedule brings its own
+    // context, so the weeks don't see each other's random numbers.
+    @Test
+    public void testSharedAlgorithmAcrossThreads() {
+        Task task1 = new Task("Task 1", 2.0);
+        Task task2 = new Task("Task 2", 1.5);
+        Task task3 = new Task("Task 3", 3.0);
+        Task task4 = new Task("Task 4", 1.0);
+        UniformDistributeAlgorithm shared = new UniformDistributeAlgorithm();
+        LocalDateTime weekStart = LocalDateTime.of(2024, 10, 7, 0, 0);
+        List<Task> tasks = List.of(task1, task2, task3, task4);
+        Schedule alone = new Schedule(weekStart, weekStart.plusDays(7), shared);
+        alone.getContext().reseed(1);
+        alone.addTasks(tasks);
+
+        List<Schedule> weeks = new java.util.ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            Schedule week = new Schedule(weekStart, weekStart.plusDays(7), shared);
+            week.getContext().reseed(1);
+            weeks.add(week);
+        }
+        weeks.parallelStream().forEach(week -> week.addTasks(tasks));
+        for (Schedule week : weeks) {
+            assertEquals(alone.toString(), week.toString(), "Same seed, same plan on every thread");
+        }
+    }
+
+    // Every week of a calendar gets its own seed from the calendar's, so two
+    // calendars with the same seed make the same plans and two weeks don't.
+    @Test
+    public void testCalendarSeedsWeeks() {
+        UniformDistributeAlgorithm uniform = new UniformDistributeAlgorithm();
+        LocalDateTime monday = LocalDateTime.of(2024, 10, 7, 0, 0);
+        Calendar first = new Calendar(monday, uniform, 42);
+        Calendar second = new Calendar(monday, uniform, 42);
+        first.forwardOneWeek();
+        second.forwardOneWeek();
+        for (int week = 0; week < 2; week++) {
+            assertEquals(first.getWeeks().get(week).getSchedule().getContext().getRandom().nextLong(),
+                    second.getWeeks().get(week).getSchedule().getContext().getRandom().nextLong(),
+                    "Same calendar seed, same numbers in week " + week);
+        }
+        assertEquals(false, first.getWeeks().get(0).getSchedule().getContext().getRandom().nextLong()
+                == first.getWeeks().get(1).getSchedule().getContext().getRandom().nextLong(),
+                "Two weeks don't share their numbers");
+    }
+}
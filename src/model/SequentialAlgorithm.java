@@ -2,69 +2,47 @@ package model;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
-import java.time.LocalTime;
+import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.List;
-import java.util.stream.Collectors;
 
-// This algorithm is mostly for debugging purposes. It attempts to add
-// a task to the schedule in the next possible location.
-// TODO: add a guarentee that the task will be inserted if there is a gap.
+// This algorithm is mostly for debugging purposes, and a quick way to put a
+// lot of tasks somewhere. It places every task in a free gap of the schedule
+// and never gives up while some gap is big enough. First fit takes the
+// earliest gap, best fit the smallest one (which keeps the big gaps for big
+// tasks). Both are a scan over the free runs of the occupancy bitmap,
+// 64 minutes at a time.
+// The night is not taken into account.
 public class SequentialAlgorithm implements Algorithm {
-    LocalTime nightStart = LocalTime.of(22, 0);
-    LocalTime nightEnd = LocalTime.of(5, 0);
-    boolean nightCheck = true;
-    @Override
-    public TimeBlock applyAlgorithm(Schedule schedule, Task task) {
-        /// insert sequentially in the next possible location.
+    private final boolean bestFit;
 
-        // sort the tasks by date and time.
-        List<TimeBlock> sortedByEnd = schedule.getTimeBlocks().stream()
-                .sorted(Comparator.comparing(TimeBlock::getEndTime))
-                .collect(Collectors.toList());
+    public SequentialAlgorithm() {
+        this(false);
+    }
 
-        // try to insert after each one.
-        for (TimeBlock timeBlockSorted : sortedByEnd) {
-            TimeBlock timeBlock = new TimeBlock(task,
-                    timeBlockSorted.getEndTime(),
-                    Duration.ofMinutes((int) (task.getEstimatedTime() * 60)));
-            if (schedule.canInsertTimeBlock(timeBlock)) {
-                schedule.getTimeBlocks().add(timeBlock);
-                return timeBlock;
-            }
-        }
+    public SequentialAlgorithm(boolean bestFit) {
+        this.bestFit = bestFit;
+    }
 
-        // try to insert at the start
-        TimeBlock timeBlock = new TimeBlock(task,
-                schedule.getStartTime(),
-                Duration.ofMinutes((int) (task.getEstimatedTime() * 60)));
-        if (schedule.canInsertTimeBlock(timeBlock)) {
-            schedule.getTimeBlocks().add(timeBlock);
-            return timeBlock;
+    @Override
+    public TimeBlock applyAlgorithm(Schedule schedule, Task task, SchedulingContext context) {
+        LocalDateTime start = bestFit
+                ? schedule.findBestFitSlot(task.getEstimatedTime())
+                : schedule.findNextAvailableSlotWithinBounds(schedule.getStartTime(), schedule.getEndTime(),
+                        task.getEstimatedTime());
+        if (start == null) {
+            System.out.println("No room to add task " + task.getDescription() + " sequentially.");
+            return null;
         }
-
-        // probably add more. This algorithm should in theory have a guarentee
-        // to place object as long as there is room. (it should account for all
-        // gaps).
-        // TODO make insertion a guarentee as long as there is a gap
-        // algorith idea
-        // 1. Create an empty list of gaps of type TimeBlock (for the intersect
-        // feature).
-        // 2. Create on big Block (timeblock) spanning the entire schedule.
-        // 3. Loop through all tasks in schedule
-        // 4. | Loop through all blocks in our gaps list (maybe a temp copy of)
-        // 5. | | If the gap and block intersect then either trim the gap or split it
-        // to resolve the intersection.
-
-        System.out.println("No room to add task " + task.getDescription() + " randomly.");
-        return null;
+        TimeBlock timeBlock = new TimeBlock(task, start,
+                Duration.ofMinutes((int) (task.getEstimatedTime() * 60)));
+        schedule.addTimeBlock(timeBlock);
+        return timeBlock;
     }
 
     public void reschedule(Schedule schedule) {
-        List<TimeBlock> timeBlocks = schedule.getTimeBlocks();
-        Collections.shuffle(timeBlocks); // Randomly shuffle tasks
-        timeBlocks = List.copyOf(timeBlocks); // use a copy to keep all ref
+        List<TimeBlock> timeBlocks = new ArrayList<>(schedule.getTimeBlocks()); // use a copy to keep all ref
+        Collections.shuffle(timeBlocks, schedule.getContext().getRandom()); // Randomly shuffle tasks
         schedule.removeAll();
         for (TimeBlock timeBlock : timeBlocks) {
             Task task = timeBlock.getTask();
@@ -77,35 +55,14 @@ public class SequentialAlgorithm implements Algorithm {
     private void assignStartTimes(Schedule schedule) {
         LocalDateTime currentTime = schedule.getStartTime();
 
-        for (TimeBlock timeBlock : schedule.getTimeBlocks()) {
+        for (TimeBlock timeBlock : List.copyOf(schedule.getTimeBlocks())) {
             LocalDateTime newEndTime = currentTime.plusMinutes((long) (timeBlock.getTask().getEstimatedTime() * 60));
-            timeBlock.setStartTime(currentTime);
-            timeBlock.setEndTime(newEndTime);
+            schedule.moveTimeBlock(timeBlock, currentTime, newEndTime);
             currentTime = newEndTime;
         }
     }
 
-    public LocalTime getNightStart() {
-        return nightStart;
-    }
-
-    public void setNightStart(LocalTime nightStart) {
-        this.nightStart = nightStart;
-    }
-
-    public LocalTime getNightEnd() {
-        return nightEnd;
-    }
-
-    public void setNightEnd(LocalTime nightEnd) {
-        this.nightEnd = nightEnd;
-    }
-
-    public void setNightCheck(boolean nightCheck){
-        this.nightCheck = nightCheck;
-    }
-    
-    public boolean getNightCheck(){
-        return nightCheck;
+    public boolean getBestFit() {
+        return bestFit;
     }
 }
@@ -0,0 +1,36 @@
+package model;
+
+/**
+ * Test cases for the sequential algorithm.
+ */
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.Test;
+
+public class SequentialAlgorithmTest {
+    // First fit takes the earliest gap that is big enough, best fit the
+    // smallest one.
+    @Test
+    public void testSequentialFirstAndBestFit() {
+        Schedule schedule = new Schedule(LocalDateTime.of(2024, 10, 1, 0, 0), LocalDateTime.of(2024, 10, 2, 0, 0),
+                new SequentialAlgorithm());
+        Task task1 = new Task("Task 1", 2.0);
+        Task task2 = new Task("Task 2", 1.5);
+        Task task3 = new Task("Task 3", 3.0);
+        Task task4 = new Task("Task 4", 1.0);
+        // gaps: 0-3 (3h), 4-5 (1h), 6-24 (18h)
+        schedule.addTimeBlockManually(new TimeBlock(task3,
+                LocalDateTime.of(2024, 10, 1, 3, 0), LocalDateTime.of(2024, 10, 1, 4, 0)));
+        schedule.addTimeBlockManually(new TimeBlock(task3,
+                LocalDateTime.of(2024, 10, 1, 5, 0), LocalDateTime.of(2024, 10, 1, 6, 0)));
+
+        assertEquals(LocalDateTime.of(2024, 10, 1, 0, 0), schedule.addTask(task1).getStartTime(), "First fit");
+        // gaps: 2-3 (1h), 4-5 (1h), 6-24 (18h)
+        schedule.setAlgorithm(new SequentialAlgorithm(true));
+        assertEquals(LocalDateTime.of(2024, 10, 1, 2, 0), schedule.addTask(task4).getStartTime(), "Smallest gap");
+        assertEquals(LocalDateTime.of(2024, 10, 1, 6, 0), schedule.addTask(task2).getStartTime(), "Only one gap is big enough");
+    }
+}
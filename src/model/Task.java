@@ -1,5 +1,6 @@
 package model;
 import java.time.LocalDateTime;
+import java.util.UUID;
 
 
 /**
@@ -9,6 +10,8 @@ import java.time.LocalDateTime;
  */
 
 public class Task {
+    // stable identifier, saved with the task so it survives save/load
+    private String id;
     private String description;
     private double estimatedTime;
     private Integer priority;
@@ -22,6 +25,7 @@ public class Task {
         this.estimatedTime = estimatedTime;
         this.deadline = (deadline == null) ? LocalDateTime.now().plusWeeks(1) : deadline;
         this.fixed = fixed;
+        this.id = UUID.randomUUID().toString();
     }
 
     public Task(String name, double estimate){this(name, 5, estimate, null, false);}
@@ -30,6 +34,14 @@ public class Task {
 
     public boolean isFullyInitialized() {return description != null && priority != null;}
 
+    public String getId() {
+        // tasks loaded from files saved before ids existed don't have one
+        if (id == null) {
+            id = UUID.randomUUID().toString();
+        }
+        return id;
+    }
+
 
     public String getDescription() {
         return description;
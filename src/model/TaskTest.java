@@ -51,4 +51,12 @@ public class TaskTest {
         assertEquals(0.9, task2.getEstimatedTime(), "The estimated time should NOT be updated.");
         assertEquals(0.0, task3.getEstimatedTime(), "The estimated time should be updated.");
     }
+
+    @Test
+    public void testGetId() {
+        assertNotEquals(task.getId(), task2.getId(), "Every task should get its own id.");
+        String id = task.getId();
+        task.setDescription("Renamed Task 1");
+        assertEquals(id, task.getId(), "The id should not change when the task is edited.");
+    }
 }
@@ -1,7 +1,7 @@
 package model;
 import java.time.Duration;
 import java.time.LocalDateTime;
-import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -10,83 +10,111 @@ import java.util.Random;
 import exceptions.NoSpaceLeftException;
 
 public class UniformDistributeAlgorithm implements Algorithm {
-    LocalTime nightStart = LocalTime.of(22, 0);
-    LocalTime nightEnd = LocalTime.of(5, 0);
-    boolean nightCheck = true;
-    int seed = 1;
+    // preferred alignment first, every interval has to divide the one before
+    private static final int[] SCAN_INTERVALS = {60, 30, 15};
+
     @Override
-    public TimeBlock applyAlgorithm(Schedule schedule, Task task) {
-        // out of the available schedule look for a good time to start
-        // scan all positions in 60 minute intervals since it is easy for people
-        ArrayList<TimeBlock> validLocations = scanIntervalForSlots(schedule, task, 60);
-        // if not found scan all positions in 30 minute intervals
-        if (validLocations.size() == 0) {
-            validLocations = scanIntervalForSlots(schedule, task, 30);
-        }
-        // if not found scan all positions in 15 minute intervals
-        if (validLocations.size() == 0) {
-            validLocations = scanIntervalForSlots(schedule, task, 15);
-        }
-        // if not found try to sequentially add the schedule to the first possible spot
-        if (validLocations.size() == 0) {
-            // TODO, honestly optional. This is an extreme edge case and unlikely to
-            // be requested
-        }
+    public TimeBlock applyAlgorithm(Schedule schedule, Task task, SchedulingContext context) {
+        // every minute where the task fits, computed once from the occupancy
+        // bitmap (into the context's scratch space). The blocked layer is the
+        // schedule's availability profile (night, fixed blocks...)
+        OccupancyBitmap occupancy = schedule.getOccupancy();
+        long[] fits = occupancy.validStarts(taskMinutes(task), true,
+                context.longScratch(occupancy.wordCount()));
+        Random random = context.getRandom();
+        // out of the available schedule look for a good time to start. Starting
+        // on the hour is easy for people, then the half hour, then the quarter.
+        int startMinute = pickSlot(schedule, task, fits, random);
         // if not found then we can't fit it.
-        if (validLocations.size() == 0) {
+        if (startMinute < 0) {
             System.out.println("No room to add task " + task.getDescription() + " randomly.");
             return null;
         }
 
-        // place the schedule in one of the positions we found.
-        Random random = new Random(seed);
-        seed++;
-        int randomIndex = random.nextInt(validLocations.size());
-        TimeBlock validTimeBlock = validLocations.get(randomIndex);
-        validTimeBlock.setTask(task);
-        schedule.getTimeBlocks().add(validTimeBlock);
+        // only now turn the position into a real TimeBlock
+        TimeBlock validTimeBlock = new TimeBlock(task,
+                schedule.fromMinutes(startMinute),
+                schedule.fromMinutes(startMinute + taskMinutes(task)));
+        schedule.addTimeBlock(validTimeBlock);
 
         return validTimeBlock;
     }
 
-    private ArrayList<TimeBlock> scanIntervalForSlots(Schedule schedule, Task task, long intervalMinutes) {
-        if (intervalMinutes < 1){
-            throw new RuntimeException("Tried to scan in intervals smaller than 1 minute.");
-        }
+    /*
+     * One sweep over the positions where the task fits, on the finest scan
+     * interval. A position on the hour is also a candidate for the half hour
+     * and the quarter, so all intervals are filled at once. Each interval
+     * keeps one random candidate by reservoir sampling (the n-th candidate
+     * replaces the pick with chance 1/n) so nothing is stored. The coarsest
+     * interval that found anything wins. Returns minutes since the schedule
+     * epoch or -1.
+     */
+    private int pickSlot(Schedule schedule, Task task, long[] fits, Random random) {
+        int finest = SCAN_INTERVALS[SCAN_INTERVALS.length - 1];
         long minutesInSchedule = Duration.between(schedule.getStartTime(), schedule.getEndTime()).toMinutes();
         // 10,080 minutes in a week
-        if (minutesInSchedule/intervalMinutes > 10_080) {
+        if (minutesInSchedule/finest > 10_080) {
             throw new RuntimeException(
                 "Too many scan intervals will occur when scanning with this many intervals.");
         }
-        // to scan create a timeblock at that position and ask if it is intersecting
-        ArrayList<TimeBlock> validLocations = new ArrayList<>();
-        // determine the size of the task.
-        Duration timeTaken = Duration.ofMinutes((long)(task.getEstimatedTime()*60));
-        // create a new time to begin scanning at
-        LocalDateTime testScanTime = schedule.getStartTime();
-        // make sure it is at the 60 minute interval
-        testScanTime = testScanTime.withMinute(0).withSecond(0).withNano(0);
-        while (testScanTime.isBefore(schedule.getEndTime()) && testScanTime.isBefore(task.getDeadline())) {
-            // create a timeblock to test with
-            TimeBlock testTimeBlock = new TimeBlock(testScanTime, testScanTime.plus(timeTaken));
-            // if it can place a timeblock at the specified location add it to the list
-            // check if it can insert it (no collision with other blocks or schedule)
-            // and if it isn't night time
-            if (schedule.canInsertTimeBlock(testTimeBlock) && 
-                (!nightCheck || !schedule.checkIfIntersectingNight(testTimeBlock, nightEnd, nightStart))) {
-                validLocations.add(testTimeBlock);
+        // intervals are counted from the hour the schedule starts in
+        int scanStart = schedule.toMinutes(schedule.getStartTime().truncatedTo(ChronoUnit.HOURS));
+        // stop before the end of the schedule and the deadline
+        int scanEnd = Math.min(schedule.toMinutesCeil(schedule.getEndTime()),
+                schedule.toMinutesCeil(task.getDeadline()));
+        OccupancyBitmap occupancy = schedule.getOccupancy();
+        int[] counts = new int[SCAN_INTERVALS.length];
+        int[] picks = new int[SCAN_INTERVALS.length];
+        int candidate = scanStart;
+        while (candidate < scanEnd) {
+            // next minute where the task fits (no collision with other blocks
+            // or the schedule, and not night time if we check for it)
+            int next = occupancy.nextValidStart(fits, candidate);
+            if (next < 0 || next >= scanEnd) {
+                break;
+            }
+            int offset = next - scanStart;
+            if (offset % finest != 0) {
+                // round up to the next position on the interval
+                candidate = scanStart + (offset / finest + 1) * finest;
+                continue;
+            }
+            for (int i = 0; i < SCAN_INTERVALS.length; i++) {
+                if (offset % SCAN_INTERVALS[i] == 0 && random.nextInt(++counts[i]) == 0) {
+                    picks[i] = next;
+                }
+            }
+            candidate = next + finest;
+        }
+        for (int i = 0; i < SCAN_INTERVALS.length; i++) {
+            if (counts[i] > 0) {
+                return picks[i];
             }
-            testScanTime = testScanTime.plusMinutes(intervalMinutes);
         }
-        return validLocations;
+        return -1;
+    }
+
+    private static int taskMinutes(Task task) {
+        return (int) (task.getEstimatedTime() * 60);
     }
 
     public void reschedule(Schedule schedule) {
-        List<TimeBlock> timeBlocks = schedule.getTimeBlocks();
-        List<TimeBlock> copyOfTimeBlocks = List.copyOf(timeBlocks); // use a copy to keep all ref
-        Random random = new Random(seed); // for debugging
-        Collections.shuffle(timeBlocks, random);  // Randomly shuffle tasks
+        tryReschedule(schedule);
+    }
+
+    // Reschedule, and if the week is over-committed keep the tasks worth the
+    // most and return the rest (see OverloadResolver) instead of changing
+    // nothing. Empty if everything fit.
+    public List<Task> rescheduleOrDefer(Schedule schedule) {
+        if (tryReschedule(schedule)) {
+            return new ArrayList<>();
+        }
+        return OverloadResolver.resolve(schedule);
+    }
+
+    private boolean tryReschedule(Schedule schedule) {
+        List<TimeBlock> timeBlocks = new ArrayList<>(schedule.getTimeBlocks());
+        Collections.shuffle(timeBlocks, schedule.getContext().getRandom());  // Randomly shuffle tasks
         // sort by priority (using stable sort)
         timeBlocks.sort((o1, o2) -> {
             if (o1.getTask() == null && o1.getTask() == null){
@@ -95,12 +123,11 @@ public class UniformDistributeAlgorithm implements Algorithm {
             return o1.getTask().getPriority().compareTo(o2.getTask().getPriority());
         });
         
-        schedule.getTimeBlocks().removeIf(t -> {
-            return !t.getTask().isFixed();
-        });
+        Schedule.Savepoint savepoint = schedule.begin();
+        schedule.removeMovableTimeBlocks();
 
         try {
-            for (TimeBlock timeBlock : copyOfTimeBlocks) {
+            for (TimeBlock timeBlock : timeBlocks) {
                 Task task = timeBlock.getTask();
                 if (!task.isFixed()){
                     var res = applyAlgorithm(schedule, task);
@@ -109,47 +136,29 @@ public class UniformDistributeAlgorithm implements Algorithm {
                     }
                 }
             }
+            schedule.commit(savepoint);
+            return true;
         } catch (NoSpaceLeftException e) {
             // undo everything by restoring the state.
             System.out.println("Could not reschedule and fit all blocks within calendar week");
-            schedule.getTimeBlocks().clear();
-            schedule.getTimeBlocks().addAll(copyOfTimeBlocks);
+            schedule.rollback(savepoint);
+            return false;
         }
-        seed++;
+    }
+
+    // Reschedule 'tries' times with different seeds (in parallel, on copies
+    // of the schedule) and keep the plan with the best score.
+    public void reschedule(Schedule schedule, int tries, ScheduleObjective objective) {
+        ParallelReschedule.run(schedule, tries, this::reschedule, objective);
     }
 
     private void assignStartTimes(Schedule schedule) {
         LocalDateTime currentTime = schedule.getStartTime();
 
-        for (TimeBlock timeBlock : schedule.getTimeBlocks()) {
+        for (TimeBlock timeBlock : List.copyOf(schedule.getTimeBlocks())) {
             LocalDateTime newEndTime = currentTime.plusMinutes((long) (timeBlock.getTask().getEstimatedTime() * 60));
-            timeBlock.setStartTime(currentTime);
-            timeBlock.setEndTime(newEndTime);
+            schedule.moveTimeBlock(timeBlock, currentTime, newEndTime);
             currentTime = newEndTime;
         }
     }
-
-    public LocalTime getNightStart() {
-        return nightStart;
-    }
-
-    public void setNightStart(LocalTime nightStart) {
-        this.nightStart = nightStart;
-    }
-
-    public LocalTime getNightEnd() {
-        return nightEnd;
-    }
-
-    public void setNightEnd(LocalTime nightEnd) {
-        this.nightEnd = nightEnd;
-    }
-
-    public void setNightCheck(boolean nightCheck){
-        this.nightCheck = nightCheck;
-    }
-    
-    public boolean getNightCheck(){
-        return nightCheck;
-    }
 }
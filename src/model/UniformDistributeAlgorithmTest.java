@@ -0,0 +1,94 @@
+package model;
+
+/**
+ * Test cases for the uniform algorithm's slot pick. The picks are random so
+ * every test runs over a range of fixed seeds.
+ */
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.Test;
+
+public class UniformDistributeAlgorithmTest {
+    private static final LocalDateTime DAY = LocalDateTime.of(2024, 10, 1, 0, 0);
+
+    // A day with only one gap, from 9:10 to 'gapEnd'. Night check is off so
+    // the gap is the only thing that matters.
+    private Schedule dayWithGap(LocalDateTime gapEnd, long seed) {
+        Schedule schedule = new Schedule(DAY, DAY.plusDays(1), new UniformDistributeAlgorithm());
+        schedule.getContext().setNightCheck(false);
+        schedule.getContext().reseed(seed);
+        schedule.addTimeBlockManually(new TimeBlock(new Task("Before", 9.0), DAY, DAY.plusHours(9).plusMinutes(10)));
+        schedule.addTimeBlockManually(new TimeBlock(new Task("After", 12.0), gapEnd, DAY.plusDays(1)));
+        return schedule;
+    }
+
+    // The hour wins over the half hour, the half hour over the quarter. A
+    // start that doesn't fit is never picked whatever the seed.
+    @Test
+    public void testPickFollowsAlignment() {
+        for (long seed = 0; seed < 50; seed++) {
+            // starts from 9:10 to 10:05 fit, 10:00 is the only one on the hour
+            Schedule schedule = dayWithGap(DAY.plusHours(11).plusMinutes(5), seed);
+            TimeBlock onHour = schedule.addTask(new Task("Hour", 1.0));
+            assertEquals(DAY.plusHours(10), onHour.getStartTime(), "On the hour with seed " + seed);
+            assertEquals(true, schedule.isValid());
+
+            // starts from 9:10 to 9:40 fit, only 9:30 is on the half hour
+            schedule = dayWithGap(DAY.plusHours(10).plusMinutes(40), seed);
+            assertEquals(DAY.plusHours(9).plusMinutes(30), schedule.addTask(new Task("Half", 1.0)).getStartTime(),
+                    "On the half hour with seed " + seed);
+
+            // starts from 9:10 to 9:25 fit, only 9:15 is on a quarter
+            schedule = dayWithGap(DAY.plusHours(10).plusMinutes(25), seed);
+            assertEquals(DAY.plusHours(9).plusMinutes(15), schedule.addTask(new Task("Quarter", 1.0)).getStartTime(),
+                    "On the quarter with seed " + seed);
+
+            // starts from 9:10 to 9:14 fit, none of them is on a quarter
+            schedule = dayWithGap(DAY.plusHours(10).plusMinutes(14), seed);
+            assertEquals(null, schedule.addTask(new Task("None", 1.0)), "No aligned start with seed " + seed);
+        }
+    }
+
+    // On an empty day every hour is a candidate, the reservoir should give
+    // each of the 24 about the same chance and the same seed the same hour.
+    @Test
+    public void testPickIsUniformOverHours() {
+        int[] counts = new int[24];
+        int seeds = 2400;
+        for (long seed = 0; seed < seeds; seed++) {
+            Schedule schedule = new Schedule(DAY, DAY.plusDays(1), new UniformDistributeAlgorithm());
+            schedule.getContext().setNightCheck(false);
+            schedule.getContext().reseed(seed);
+            LocalDateTime start = schedule.addTask(new Task("Hour", 1.0)).getStartTime();
+            assertEquals(0, start.getMinute(), "On the hour with seed " + seed);
+            counts[start.getHour()]++;
+
+            Schedule again = new Schedule(DAY, DAY.plusDays(1), new UniformDistributeAlgorithm());
+            again.getContext().setNightCheck(false);
+            again.getContext().reseed(seed);
+            assertEquals(start, again.addTask(new Task("Hour", 1.0)).getStartTime(), "Same seed, same hour");
+        }
+        // 100 expected per hour, the bounds are far outside what a fair pick gives
+        for (int hour = 0; hour < 24; hour++) {
+            assertEquals(true, counts[hour] > 50 && counts[hour] < 150,
+                    "Hour " + hour + " was picked " + counts[hour] + " times");
+        }
+    }
+
+    // With the night check on the pick stays out of the night.
+    @Test
+    public void testPickSkipsNight() {
+        for (long seed = 0; seed < 50; seed++) {
+            Schedule schedule = new Schedule(DAY, DAY.plusDays(1), new UniformDistributeAlgorithm());
+            schedule.getContext().reseed(seed);
+            TimeBlock timeBlock = schedule.addTask(new Task("Task", 2.0));
+            assertEquals(false, schedule.checkIfIntersectingNight(timeBlock,
+                    schedule.getContext().getNightEnd(), schedule.getContext().getNightStart()),
+                    "Not in the night with seed " + seed);
+            assertEquals(0, timeBlock.getStartTime().getMinute());
+        }
+    }
+}